@@ -1,9 +1,7 @@
 package io.fabianterhorst.fastlayout.sample;
 
-import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
 import com.mikepenz.fastadapter.items.AbstractItem;
 import com.mikepenz.materialize.holder.StringHolder;
@@ -13,7 +11,7 @@ import java.util.List;
 /**
  * Created by fabianterhorst on 16.05.16.
  */
-public class SampleItem extends AbstractItem<SampleItem, SampleItem.ViewHolder> {
+public class SampleItem extends AbstractItem<SampleItem, ItemSampleLayout.ViewHolder> {
 
     public StringHolder name;
 
@@ -33,28 +31,24 @@ public class SampleItem extends AbstractItem<SampleItem, SampleItem.ViewHolder>
     }
 
     @Override
-    public ViewHolder getViewHolder(View v) {
+    public ItemSampleLayout.ViewHolder getViewHolder(View v) {
         return null;
     }
 
     @Override
-    public ViewHolder getViewHolder(ViewGroup parent) {
-        return new ViewHolder(new ItemSampleLayout(parent.getContext()));
+    public ItemSampleLayout.ViewHolder getViewHolder(ViewGroup parent) {
+        return new ItemSampleLayout.ViewHolder(parent);
     }
 
     @Override
-    public void bindView(ViewHolder viewHolder, List<Object> payloads) {
+    public void bindView(ItemSampleLayout.ViewHolder viewHolder, List<Object> payloads) {
         super.bindView(viewHolder, payloads);
-        name.applyToOrHide(viewHolder.name);
-    }
-
-    protected static class ViewHolder extends RecyclerView.ViewHolder {
-
-        protected TextView name;
-
-        public ViewHolder(ItemSampleLayout view) {
-            super(view);
-            this.name = view.getName();
+        ItemSampleLayout layout = viewHolder.getLayout();
+        if (name != null && name.getText() != null) {
+            layout.bindNameText(name.getText());
+            layout.bindNameVisibility(View.VISIBLE);
+        } else {
+            layout.bindNameVisibility(View.GONE);
         }
     }
 }
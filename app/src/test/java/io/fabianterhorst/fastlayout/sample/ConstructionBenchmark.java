@@ -0,0 +1,80 @@
+package io.fabianterhorst.fastlayout.sample;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Measures the time and the allocated bytes of a view construction on the current thread
+ *
+ * Every construction is warmed up first, so the JIT compiled both the generated layout and the LayoutInflater before they are measured. The
+ * allocations are read from the HotSpot thread allocation counter and are -1 on other JVMs.
+ */
+class ConstructionBenchmark {
+
+    interface Construction {
+        Object construct();
+    }
+
+    static class Result {
+
+        final String name;
+
+        final long nanosPerConstruction;
+
+        final long bytesPerConstruction;
+
+        Result(String name, long nanosPerConstruction, long bytesPerConstruction) {
+            this.name = name;
+            this.nanosPerConstruction = nanosPerConstruction;
+            this.bytesPerConstruction = bytesPerConstruction;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %10.1f us %10d bytes", name, nanosPerConstruction / 1000f, bytesPerConstruction);
+        }
+    }
+
+    private final int warmupConstructions;
+
+    private final int constructions;
+
+    /**
+     * keeps the constructed views reachable, so the construction can not be removed by the JIT
+     */
+    private Object sink;
+
+    ConstructionBenchmark(int warmupConstructions, int constructions) {
+        this.warmupConstructions = warmupConstructions;
+        this.constructions = constructions;
+    }
+
+    Result measure(String name, Construction construction) {
+        for (int i = 0; i < warmupConstructions; i++) {
+            sink = construction.construct();
+        }
+        long allocatedBytes = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < constructions; i++) {
+            sink = construction.construct();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes < 0 ? -1 : (getAllocatedBytes() - allocatedBytes) / constructions;
+        if (sink == null) {
+            throw new IllegalStateException(name + " constructed nothing");
+        }
+        return new Result(name, nanos / constructions, bytes);
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (hotSpotThreadBean.isThreadAllocatedMemorySupported() && hotSpotThreadBean.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
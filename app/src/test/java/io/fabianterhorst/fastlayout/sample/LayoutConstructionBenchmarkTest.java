@@ -0,0 +1,126 @@
+package io.fabianterhorst.fastlayout.sample;
+
+import android.app.Activity;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Constructs every sample layout through the generated class and through the LayoutInflater
+ *
+ * Runs on the JVM with Robolectric, so the numbers are not the numbers of a device, but the relation between both ways and the trend across
+ * releases are. The results are printed and written to build/reports/benchmarks/layouts.csv.
+ * The constructions can be changed with -Dfastlayout.benchmark.warmup and -Dfastlayout.benchmark.constructions.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class LayoutConstructionBenchmarkTest {
+
+    private static final List<ConstructionBenchmark.Result> results = new ArrayList<>();
+
+    private Activity activity;
+
+    private LayoutInflater inflater;
+
+    private FrameLayout parent;
+
+    private ConstructionBenchmark benchmark;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.setupActivity(MainActivity.class);
+        inflater = LayoutInflater.from(activity);
+        parent = new FrameLayout(activity);
+        benchmark = new ConstructionBenchmark(Integer.getInteger("fastlayout.benchmark.warmup", 200), Integer.getInteger("fastlayout.benchmark.constructions", 1000));
+    }
+
+    @Test
+    public void activityMain() {
+        measure("activity_main", R.layout.activity_main, new ConstructionBenchmark.Construction() {
+            @Override
+            public Object construct() {
+                return new ActivityMainLayout(activity);
+            }
+        });
+    }
+
+    @Test
+    public void itemSample() {
+        measure("item_sample", R.layout.item_sample, new ConstructionBenchmark.Construction() {
+            @Override
+            public Object construct() {
+                return new ItemSampleLayout(activity);
+            }
+        });
+    }
+
+    @Test
+    public void cardView() {
+        measure("card_view", R.layout.card_view, new ConstructionBenchmark.Construction() {
+            @Override
+            public Object construct() {
+                return new CardViewLayout(activity);
+            }
+        });
+    }
+
+    @Test
+    public void textviewSample() {
+        measure("textview_sample", R.layout.textview_sample, new ConstructionBenchmark.Construction() {
+            @Override
+            public Object construct() {
+                return new TextviewSampleLayout(activity);
+            }
+        });
+    }
+
+    private void measure(String layoutName, final int layoutId, ConstructionBenchmark.Construction generated) {
+        assertNotNull(generated.construct());
+        ConstructionBenchmark.Construction inflated = new ConstructionBenchmark.Construction() {
+            @Override
+            public Object construct() {
+                return inflater.inflate(layoutId, parent, false);
+            }
+        };
+        assertNotNull(inflated.construct());
+        ConstructionBenchmark.Result generatedResult = benchmark.measure(layoutName + " generated", generated);
+        ConstructionBenchmark.Result inflatedResult = benchmark.measure(layoutName + " LayoutInflater", inflated);
+        System.out.println(generatedResult);
+        System.out.println(inflatedResult);
+        synchronized (results) {
+            results.add(generatedResult);
+            results.add(inflatedResult);
+        }
+    }
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        File reportFolder = new File("build/reports/benchmarks");
+        if (!reportFolder.isDirectory() && !reportFolder.mkdirs()) {
+            throw new IOException("can not create " + reportFolder);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(reportFolder, "layouts.csv")), "UTF-8")) {
+            writer.write("construction,nanos,bytes\n");
+            for (ConstructionBenchmark.Result result : results) {
+                writer.write(result.name + "," + result.nanosPerConstruction + "," + result.bytesPerConstruction + "\n");
+            }
+        }
+    }
+}
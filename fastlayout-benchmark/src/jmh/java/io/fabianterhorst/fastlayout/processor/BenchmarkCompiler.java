@@ -0,0 +1,97 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.sun.source.util.JavacTask;
+
+/**
+ * In process javac for the benchmarks
+ *
+ * The android classes are only on the classpath when the system property fastlayout.benchmark.androidJar points to an android.jar, without them
+ * every tag resolves to android.view.View and fewer converters run.
+ */
+class BenchmarkCompiler {
+
+    static final String PROPERTY_ANDROID_JAR = "fastlayout.benchmark.androidJar";
+
+    private BenchmarkCompiler() {
+    }
+
+    /**
+     * @return the classpath of the benchmark followed by the android.jar
+     */
+    static String getClasspath() {
+        String classpath = System.getProperty("java.class.path");
+        String androidJar = System.getProperty(PROPERTY_ANDROID_JAR);
+        if (androidJar != null && !androidJar.isEmpty()) {
+            classpath += File.pathSeparator + androidJar;
+        }
+        return classpath;
+    }
+
+    /**
+     * @return a task without sources, its elements and types resolve the classes of the classpath
+     */
+    static JavacTask newTask() {
+        JavaCompiler compiler = getCompiler();
+        return (JavacTask) compiler.getTask(null, null, null, Arrays.asList("-proc:none", "-classpath", getClasspath()), null, null);
+    }
+
+    /**
+     * runs only the annotation processing of the sources
+     *
+     * @param processor       processor instance, it is not discovered through the classpath
+     * @param sources         sources with the annotated classes
+     * @param generatedFolder output folder of the generated sources
+     * @param options         processor options without -A
+     */
+    static void process(Processor processor, List<File> sources, File generatedFolder, String... options) throws IOException {
+        JavaCompiler compiler = getCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            if (!generatedFolder.isDirectory() && !generatedFolder.mkdirs()) {
+                throw new IOException("can not create " + generatedFolder);
+            }
+            List<String> arguments = new ArrayList<>(Arrays.asList("-proc:only", "-classpath", getClasspath(), "-s", generatedFolder.getAbsolutePath()));
+            for (String option : options) {
+                arguments.add("-A" + option);
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, arguments, null, fileManager.getJavaFileObjectsFromFiles(sources));
+            task.setProcessors(Collections.singletonList(processor));
+            task.call();
+            //the fastlayout runtime is an android library and not on the classpath, so only errors outside of the generated sources count
+            String generatedPath = generatedFolder.getAbsolutePath();
+            StringBuilder errors = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR && (diagnostic.getSource() == null || !diagnostic.getSource().toUri().getPath().startsWith(generatedPath))) {
+                    errors.append('\n').append(diagnostic.getMessage(Locale.ROOT));
+                }
+            }
+            if (errors.length() > 0) {
+                throw new IllegalStateException("annotation processing failed" + errors);
+            }
+        }
+    }
+
+    private static JavaCompiler getCompiler() {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("the benchmarks need a JDK");
+        }
+        return compiler;
+    }
+}
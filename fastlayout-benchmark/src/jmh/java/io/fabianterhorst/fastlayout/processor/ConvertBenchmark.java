@@ -0,0 +1,81 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fabianterhorst.fastlayout.converters.CardViewLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.DefaultAttributesConverter;
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+import io.fabianterhorst.fastlayout.converters.LayoutConverter;
+import io.fabianterhorst.fastlayout.converters.LayoutConverters;
+import io.fabianterhorst.fastlayout.converters.LinearLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.MarginConverter;
+import io.fabianterhorst.fastlayout.converters.PaddingConverter;
+import io.fabianterhorst.fastlayout.converters.RelativeLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.SizeConverter;
+import io.fabianterhorst.fastlayout.converters.TextViewLayoutConverter;
+
+/**
+ * Converts the xml attributes of all views of a layout with LayoutConverters.convert and finish
+ *
+ * One converter set with the converters of a TextView inside a RelativeLayout is used for every view, so the benchmark measures the converters
+ * and the dispatch, not the type resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertBenchmark {
+
+    @Param({"LIST_ITEM", "DEEP", "WIDE"})
+    public SyntheticCorpus.Shape shape;
+
+    @Param({"8", "64"})
+    public int size;
+
+    private List<LayoutEntity> layouts;
+
+    private LayoutConverters converters;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(Files.createTempDirectory("fastlayout-convert").toFile(), SyntheticCorpus.Shape.values().length, size, 42);
+        File layoutFile = corpus.getLayoutFile(shape);
+        LayoutEntity rootLayout = new LayoutParser().parse(layoutFile, LayoutParser.read(layoutFile));
+        layouts = new ArrayList<>();
+        layouts.add(rootLayout);
+        layouts.addAll(rootLayout.getDescendants());
+        converters = new LayoutConverters();
+        converters.setAll(new ArrayList<>(Arrays.asList(new DefaultAttributesConverter(), new MarginConverter(), new PaddingConverter(), new SizeConverter(),
+                new CardViewLayoutConverter(), new TextViewLayoutConverter(), new LinearLayoutConverter(), new RelativeLayoutConverter(), new LayoutConverter())));
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) {
+        for (LayoutEntity layout : layouts) {
+            List<LayoutAttribute> attributes = new ArrayList<>();
+            for (Map.Entry<String, String> attribute : layout.getXmlAttributes().entrySet()) {
+                LayoutAttribute layoutAttribute = converters.convert(attribute.getValue(), attribute.getKey(), attributes);
+                if (layoutAttribute.getType() != LayoutAttribute.Type.ASSIGNED) {
+                    attributes.add(layoutAttribute);
+                }
+            }
+            attributes.addAll(converters.finish(attributes));
+            blackhole.consume(attributes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs javac with the processor over the synthetic project, like a build that only runs the annotation processing
+ *
+ * Without cache every layout is compiled, with cache the previous invocation left the generated sources in the cache and only the hashes are
+ * compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EndToEndBenchmark {
+
+    @Param({"100", "1000"})
+    public int layouts;
+
+    @Param({"16"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({LayoutProcessor.BACKEND_FREEMARKER, LayoutProcessor.BACKEND_DIRECT})
+    public String backend;
+
+    private SyntheticCorpus corpus;
+
+    private File cacheFolder;
+
+    @Setup
+    public void setUp() throws Exception {
+        corpus = SyntheticCorpus.generate(Files.createTempDirectory("fastlayout-javac").toFile(), layouts, size, 42);
+        cacheFolder = new File(corpus.getRoot(), "build/intermediates/fastlayout/benchmark");
+    }
+
+    @Setup(Level.Invocation)
+    public void clean() throws IOException {
+        delete(corpus.getGeneratedSourceFolder());
+        if (!cached) {
+            delete(cacheFolder);
+        }
+    }
+
+    @Benchmark
+    public void process() throws Exception {
+        BenchmarkCompiler.process(new LayoutProcessor(), Collections.singletonList(corpus.getLayoutsClass()), corpus.getGeneratedSourceFolder(),
+                LayoutProcessor.OPTION_CACHE_DIR + "=" + cacheFolder.getAbsolutePath(), LayoutProcessor.OPTION_PARALLEL + "=" + parallel, LayoutProcessor.OPTION_BACKEND + "=" + backend);
+    }
+
+    private static void delete(File file) throws IOException {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("can not delete " + file);
+        }
+    }
+}
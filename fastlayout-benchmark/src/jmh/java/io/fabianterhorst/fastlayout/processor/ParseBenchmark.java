@@ -0,0 +1,50 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses a single layout of the synthetic corpus into the layout tree
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBenchmark {
+
+    @Param({"LIST_ITEM", "DEEP", "WIDE"})
+    public SyntheticCorpus.Shape shape;
+
+    @Param({"8", "64"})
+    public int size;
+
+    private File layoutFile;
+
+    private byte[] layout;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(Files.createTempDirectory("fastlayout-parse").toFile(), SyntheticCorpus.Shape.values().length, size, 42);
+        layoutFile = corpus.getLayoutFile(shape);
+        layout = LayoutParser.read(layoutFile);
+    }
+
+    @Benchmark
+    public LayoutEntity parse() throws LayoutParseException {
+        return new LayoutParser().parse(layoutFile, layout);
+    }
+
+    @Benchmark
+    public byte[] read() throws Exception {
+        return LayoutParser.read(layoutFile);
+    }
+}
@@ -0,0 +1,103 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.sun.source.util.JavacTask;
+
+import freemarker.template.Configuration;
+import freemarker.template.Version;
+import io.fabianterhorst.fastlayout.converters.LayoutConverter;
+
+/**
+ * Writes the source of a converted layout and the LayoutCache of the whole corpus with the FreeMarker templates or the direct emitter
+ *
+ * Rendering rewrites the attributes of the layout, so the layout is parsed and converted again before every invocation, outside of the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+    @Param({"LIST_ITEM", "DEEP", "WIDE"})
+    public SyntheticCorpus.Shape shape;
+
+    @Param({"8", "64"})
+    public int size;
+
+    @Param({"1000"})
+    public int layouts;
+
+    @Param({LayoutProcessor.BACKEND_FREEMARKER, LayoutProcessor.BACKEND_DIRECT})
+    public String backend;
+
+    private LayoutEmitter emitter;
+
+    private LayoutCompiler compiler;
+
+    private File layoutFile;
+
+    private byte[] layout;
+
+    private LayoutEntity rootLayout;
+
+    private Map<String, LayoutObject> layoutCache;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(Files.createTempDirectory("fastlayout-render").toFile(), layouts, size, 42);
+        if (backend.equals(LayoutProcessor.BACKEND_DIRECT)) {
+            emitter = new DirectLayoutEmitter();
+        } else {
+            Configuration freemarkerConfiguration = new Configuration(new Version(2, 3, 22));
+            freemarkerConfiguration.setClassForTemplateLoading(LayoutProcessor.class, "");
+            emitter = new FreemarkerLayoutEmitter(freemarkerConfiguration);
+        }
+        JavacTask javacTask = BenchmarkCompiler.newTask();
+        WidgetTypeResolver widgetTypes = new WidgetTypeResolver(javacTask.getElements(), javacTask.getTypes());
+        compiler = new LayoutCompiler(emitter, Collections.<Class<? extends LayoutConverter>>emptyList(), widgetTypes, ResourceValues.index(corpus.getResourceFolder()), false, false, false, false, LayoutMethod.DEFAULT_MAX_STATEMENTS);
+        layoutFile = corpus.getLayoutFile(shape);
+        layout = LayoutParser.read(layoutFile);
+        layoutCache = new HashMap<>();
+        List<String> classNames = corpus.getClassNames();
+        for (int i = 0; i < classNames.size(); i++) {
+            LayoutObject layoutObject = new LayoutObject(SyntheticCorpus.PACKAGE + "." + classNames.get(i));
+            layoutObject.setLayoutName(corpus.getLayoutNames().get(i));
+            layoutCache.put(SyntheticCorpus.toConstant(classNames.get(i)), layoutObject);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() throws Exception {
+        rootLayout = compiler.parse(layoutFile, layout);
+    }
+
+    @Benchmark
+    public String renderLayout() throws Exception {
+        return compiler.render(rootLayout, SyntheticCorpus.PACKAGE, "BenchmarkLayout");
+    }
+
+    @Benchmark
+    public String renderLayoutCache() throws Exception {
+        StringWriter writer = new StringWriter();
+        emitter.emitLayoutCache(writer, SyntheticCorpus.PACKAGE, layoutCache, Collections.<String, List<String>>emptyMap());
+        return writer.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolves layout ids to their names like the processor does for @Layouts(ids) and exclude
+ *
+ * The index is built once per round from R.txt or R.java, then every id is a map lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SymbolLookupBenchmark {
+
+    @Param({"100", "2000"})
+    public int layouts;
+
+    private SyntheticCorpus corpus;
+
+    private String rJava;
+
+    private RSymbolTable symbolTable;
+
+    private int[] layoutIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        corpus = SyntheticCorpus.generate(Files.createTempDirectory("fastlayout-symbols").toFile(), layouts, 4, 42);
+        rJava = new String(Files.readAllBytes(corpus.getRJava().toPath()), Charset.forName("UTF-8"));
+        symbolTable = RSymbolTable.fromSymbolList(corpus.getSymbolList());
+        layoutIds = new int[layouts];
+        for (int i = 0; i < layouts; i++) {
+            layoutIds[i] = corpus.getLayoutId(i);
+        }
+    }
+
+    @Benchmark
+    public RSymbolTable readSymbolList() throws Exception {
+        return RSymbolTable.fromSymbolList(corpus.getSymbolList());
+    }
+
+    @Benchmark
+    public RSymbolTable scanRJava() {
+        return RSymbolTable.fromRJava(rJava);
+    }
+
+    @Benchmark
+    public void lookupAllLayouts(Blackhole blackhole) {
+        for (int layoutId : layoutIds) {
+            blackhole.consume(symbolTable.getName(layoutId));
+        }
+    }
+}
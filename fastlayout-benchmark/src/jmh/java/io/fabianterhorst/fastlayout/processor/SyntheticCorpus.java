@@ -0,0 +1,413 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a project with generated layouts that the processor can compile like an application project
+ *
+ * The project has the folders the processor looks for: src/main/res with the layouts and values, build/intermediates/symbols/debug/R.txt,
+ * build/generated/source/r/debug with the R.java and an annotated class that generates all layouts. Every third layout is a list item, a deep
+ * tree of nested view groups and a wide RelativeLayout whose children are positioned relative to each other. The same seed always writes the
+ * same project.
+ */
+public class SyntheticCorpus {
+
+    public static final String PACKAGE = "io.fabianterhorst.fastlayout.benchmark";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String ANDROID_NAMESPACE = "xmlns:android=\"http://schemas.android.com/apk/res/android\"";
+
+    private static final int ID_BASE = 0x7f080000;
+
+    private static final int LAYOUT_ID_BASE = 0x7f0b0000;
+
+    private static final int DIMENS = 16;
+
+    private static final int COLORS = 8;
+
+    private static final int STRINGS = 32;
+
+    public enum Shape {
+
+        /**
+         * horizontal LinearLayout with an image and a vertical LinearLayout of text views, the size is the number of text views
+         */
+        LIST_ITEM("list_item"),
+
+        /**
+         * nested FrameLayouts and LinearLayouts with a TextView as leaf, the size is the depth
+         */
+        DEEP("deep"),
+
+        /**
+         * RelativeLayout whose children are placed below or next to the previous child, the size is the number of children
+         */
+        WIDE("wide");
+
+        private final String prefix;
+
+        Shape(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+    }
+
+    private final File root;
+
+    private final List<File> layoutFiles = new ArrayList<>();
+
+    private final List<String> layoutNames = new ArrayList<>();
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final Random random;
+
+    private SyntheticCorpus(File root, long seed) {
+        this.root = root;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param root    project folder, existing files are overwritten
+     * @param layouts number of layouts, the shapes alternate
+     * @param size    children of a list item and a RelativeLayout and depth of a deep tree
+     * @param seed    seed of the attribute values
+     * @return the written project
+     */
+    public static SyntheticCorpus generate(File root, int layouts, int size, long seed) throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(root, seed);
+        Shape[] shapes = Shape.values();
+        for (int i = 0; i < layouts; i++) {
+            corpus.writeLayout(shapes[i % shapes.length], i, size);
+        }
+        corpus.writeValues();
+        corpus.writeSymbols();
+        corpus.writeLayoutsClass();
+        return corpus;
+    }
+
+    private void writeLayout(Shape shape, int index, int size) throws IOException {
+        String layoutName = shape.getPrefix() + "_" + index;
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        switch (shape) {
+            case LIST_ITEM:
+                writeListItem(xml, layoutName, size);
+                break;
+            case DEEP:
+                writeDeep(xml, layoutName, size);
+                break;
+            case WIDE:
+                writeWide(xml, layoutName, size);
+                break;
+        }
+        File file = new File(getLayoutFolder(), layoutName + ".xml");
+        write(file, xml.toString());
+        layoutFiles.add(file);
+        layoutNames.add(layoutName);
+    }
+
+    private void writeListItem(StringBuilder xml, String layoutName, int size) {
+        xml.append("<LinearLayout ").append(ANDROID_NAMESPACE).append('\n');
+        attribute(xml, "android:id", newId(layoutName + "Root"));
+        attribute(xml, "android:layout_width", "match_parent");
+        attribute(xml, "android:layout_height", "wrap_content");
+        attribute(xml, "android:orientation", "horizontal");
+        attribute(xml, "android:padding", dimen());
+        attribute(xml, "android:background", "?attr/selectableItemBackground");
+        xml.append(">\n");
+        xml.append("<ImageView\n");
+        attribute(xml, "android:id", newId(layoutName + "Icon"));
+        attribute(xml, "android:layout_width", dp(24, 72));
+        attribute(xml, "android:layout_height", dp(24, 72));
+        attribute(xml, "android:layout_marginRight", dimen());
+        xml.append("/>\n");
+        xml.append("<LinearLayout\n");
+        attribute(xml, "android:id", newId(layoutName + "Texts"));
+        attribute(xml, "android:layout_width", "0dp");
+        attribute(xml, "android:layout_height", "wrap_content");
+        attribute(xml, "android:layout_weight", "1");
+        attribute(xml, "android:orientation", "vertical");
+        xml.append(">\n");
+        for (int i = 0; i < size; i++) {
+            writeTextView(xml, layoutName + "Text" + i, "match_parent");
+        }
+        xml.append("</LinearLayout>\n");
+        xml.append("</LinearLayout>\n");
+    }
+
+    private void writeDeep(StringBuilder xml, String layoutName, int size) {
+        for (int depth = 0; depth < size; depth++) {
+            String tag = depth % 2 == 0 ? "FrameLayout" : "LinearLayout";
+            xml.append('<').append(tag).append(depth == 0 ? " " + ANDROID_NAMESPACE : "").append('\n');
+            attribute(xml, "android:id", newId(layoutName + "Group" + depth));
+            attribute(xml, "android:layout_width", "match_parent");
+            attribute(xml, "android:layout_height", "wrap_content");
+            if (tag.equals("LinearLayout")) {
+                attribute(xml, "android:orientation", random.nextBoolean() ? "vertical" : "horizontal");
+            }
+            attribute(xml, "android:paddingLeft", dp(0, 8));
+            attribute(xml, "android:paddingTop", dp(0, 8));
+            if (random.nextInt(4) == 0) {
+                attribute(xml, "android:background", "@color/color" + random.nextInt(COLORS));
+            }
+            xml.append(">\n");
+        }
+        writeTextView(xml, layoutName + "Leaf", "wrap_content");
+        for (int depth = size - 1; depth >= 0; depth--) {
+            xml.append("</").append(depth % 2 == 0 ? "FrameLayout" : "LinearLayout").append(">\n");
+        }
+    }
+
+    private void writeWide(StringBuilder xml, String layoutName, int size) {
+        xml.append("<RelativeLayout ").append(ANDROID_NAMESPACE).append('\n');
+        attribute(xml, "android:id", newId(layoutName + "Root"));
+        attribute(xml, "android:layout_width", "match_parent");
+        attribute(xml, "android:layout_height", "match_parent");
+        attribute(xml, "android:padding", dimen());
+        xml.append(">\n");
+        String previous = null;
+        for (int i = 0; i < size; i++) {
+            String id = layoutName + "Child" + i;
+            xml.append(i % 4 == 3 ? "<Button\n" : "<TextView\n");
+            attribute(xml, "android:id", newId(id));
+            attribute(xml, "android:layout_width", "wrap_content");
+            attribute(xml, "android:layout_height", "wrap_content");
+            if (previous == null) {
+                attribute(xml, "android:layout_alignParentTop", "true");
+                attribute(xml, "android:layout_alignParentLeft", "true");
+            } else if (i % 3 == 0) {
+                attribute(xml, "android:layout_below", "@id/" + previous);
+                attribute(xml, "android:layout_alignLeft", "@id/" + previous);
+            } else {
+                attribute(xml, "android:layout_toRightOf", "@id/" + previous);
+                attribute(xml, "android:layout_alignBaseline", "@id/" + previous);
+            }
+            attribute(xml, "android:layout_marginLeft", dimen());
+            attribute(xml, "android:text", string());
+            attribute(xml, "android:textSize", random.nextBoolean() ? "@dimen/text_size" : random.nextInt(10) + 12 + "sp");
+            xml.append("/>\n");
+            previous = id;
+        }
+        xml.append("</RelativeLayout>\n");
+    }
+
+    private void writeTextView(StringBuilder xml, String id, String width) {
+        xml.append("<TextView\n");
+        attribute(xml, "android:id", newId(id));
+        attribute(xml, "android:layout_width", width);
+        attribute(xml, "android:layout_height", "wrap_content");
+        attribute(xml, "android:text", string());
+        attribute(xml, "android:textColor", "@color/color" + random.nextInt(COLORS));
+        attribute(xml, "android:textSize", random.nextBoolean() ? "@dimen/text_size" : random.nextInt(10) + 12 + "sp");
+        if (random.nextInt(3) == 0) {
+            attribute(xml, "android:maxLines", String.valueOf(random.nextInt(3) + 1));
+        }
+        if (random.nextInt(3) == 0) {
+            attribute(xml, "android:layout_marginTop", dimen());
+        }
+        xml.append("/>\n");
+    }
+
+    private void writeValues() throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<resources>\n");
+        for (int i = 0; i < DIMENS; i++) {
+            xml.append("    <dimen name=\"margin").append(i).append("\">").append(i * 2).append("dp</dimen>\n");
+        }
+        xml.append("    <dimen name=\"text_size\">14sp</dimen>\n");
+        for (int i = 0; i < COLORS; i++) {
+            xml.append("    <color name=\"color").append(i).append("\">#").append(String.format("%06X", random.nextInt(0x1000000))).append("</color>\n");
+        }
+        for (int i = 0; i < STRINGS; i++) {
+            xml.append("    <string name=\"text").append(i).append("\">Text ").append(i).append("</string>\n");
+        }
+        xml.append("</resources>\n");
+        write(new File(root, "src/main/res/values/values.xml"), xml.toString());
+    }
+
+    /**
+     * writes the R.txt symbol list and the R.java, the ids follow the numbering of aapt
+     */
+    private void writeSymbols() throws IOException {
+        StringBuilder rTxt = new StringBuilder();
+        StringBuilder rJava = new StringBuilder("package " + PACKAGE + ";\n\npublic final class R {\n");
+        rJava.append("    public static final class id {\n");
+        for (int i = 0; i < ids.size(); i++) {
+            String hex = "0x" + Integer.toHexString(ID_BASE + i);
+            rTxt.append("int id ").append(ids.get(i)).append(' ').append(hex).append('\n');
+            rJava.append("        public static final int ").append(ids.get(i)).append(" = ").append(hex).append(";\n");
+        }
+        rJava.append("    }\n    public static final class layout {\n");
+        for (int i = 0; i < layoutNames.size(); i++) {
+            String hex = "0x" + Integer.toHexString(getLayoutId(i));
+            rTxt.append("int layout ").append(layoutNames.get(i)).append(' ').append(hex).append('\n');
+            rJava.append("        public static final int ").append(layoutNames.get(i)).append(" = ").append(hex).append(";\n");
+        }
+        rJava.append("    }\n}\n");
+        write(getSymbolList(), rTxt.toString());
+        write(getRJava(), rJava.toString());
+    }
+
+    private void writeLayoutsClass() throws IOException {
+        write(getLayoutsClass(), "package " + PACKAGE + ";\n\n"
+                + "import io.fabianterhorst.fastlayout.annotations.Layouts;\n\n"
+                + "@Layouts(all = true)\n"
+                + "public class BenchmarkLayouts {\n"
+                + "}\n");
+    }
+
+    private String newId(String id) {
+        ids.add(id);
+        return "@+id/" + id;
+    }
+
+    private String dimen() {
+        return random.nextBoolean() ? "@dimen/margin" + random.nextInt(DIMENS) : dp(0, 16);
+    }
+
+    private String dp(int min, int max) {
+        return (min + random.nextInt(max - min + 1)) + "dp";
+    }
+
+    private String string() {
+        return random.nextBoolean() ? "@string/text" + random.nextInt(STRINGS) : "Text " + random.nextInt(1000);
+    }
+
+    private static void attribute(StringBuilder xml, String name, String value) {
+        xml.append("    ").append(name).append("=\"").append(value).append("\"\n");
+    }
+
+    private static void write(File file, String content) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("can not create " + folder);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+            writer.write(content);
+        }
+    }
+
+    public File getRoot() {
+        return root;
+    }
+
+    public File getLayoutFolder() {
+        return new File(root, "src/main/res/layout");
+    }
+
+    public File getResourceFolder() {
+        return new File(root, "src/main/res");
+    }
+
+    public File getSymbolList() {
+        return new File(root, "build/intermediates/symbols/debug/R.txt");
+    }
+
+    public File getRJava() {
+        return new File(root, "build/generated/source/r/debug/" + PACKAGE.replace('.', '/') + "/R.java");
+    }
+
+    public File getLayoutsClass() {
+        return new File(root, "src/main/java/" + PACKAGE.replace('.', '/') + "/BenchmarkLayouts.java");
+    }
+
+    /**
+     * @return output folder of the processor, the processor finds the project folders from here
+     */
+    public File getGeneratedSourceFolder() {
+        return new File(root, "build/generated/source/apt/debug");
+    }
+
+    public List<File> getLayoutFiles() {
+        return Collections.unmodifiableList(layoutFiles);
+    }
+
+    /**
+     * @return first layout of the shape
+     */
+    public File getLayoutFile(Shape shape) {
+        for (File layoutFile : layoutFiles) {
+            if (layoutFile.getName().startsWith(shape.getPrefix() + "_")) {
+                return layoutFile;
+            }
+        }
+        throw new IllegalArgumentException("no " + shape.getPrefix() + " layout in the corpus");
+    }
+
+    public int getLayoutCount() {
+        return layoutFiles.size();
+    }
+
+    /**
+     * @param index index of the layout in the corpus
+     * @return id of the layout in R.layout
+     */
+    public int getLayoutId(int index) {
+        return LAYOUT_ID_BASE + index;
+    }
+
+    /**
+     * @return resource names of the layouts, list_item_0 is R.layout.list_item_0
+     */
+    public List<String> getLayoutNames() {
+        return Collections.unmodifiableList(layoutNames);
+    }
+
+    /**
+     * @return simple names of the generated layout classes, list_item_0 is generated as ListItem0Layout
+     */
+    public List<String> getClassNames() {
+        List<String> classNames = new ArrayList<>(layoutNames.size());
+        for (String layoutName : layoutNames) {
+            StringBuilder className = new StringBuilder();
+            for (String part : layoutName.split("_")) {
+                className.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+            classNames.add(className.append("Layout").toString());
+        }
+        return classNames;
+    }
+
+    /**
+     * @param className simple class name of a generated layout
+     * @return the name of its constant in the LayoutCache, ListItem0Layout is List_Item0_Layout
+     */
+    public static String toConstant(String className) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < className.length(); i++) {
+            char character = className.charAt(i);
+            if (i != 0 && Character.isUpperCase(character)) {
+                constant.append('_');
+            }
+            constant.append(character);
+        }
+        return constant.toString();
+    }
+
+    /**
+     * usage: SyntheticCorpus folder [layouts] [size] [seed]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: SyntheticCorpus folder [layouts] [size] [seed]");
+            System.exit(1);
+        }
+        int layouts = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        SyntheticCorpus corpus = generate(new File(args[0]), layouts, size, seed);
+        System.out.println(corpus.getLayoutCount() + " layouts written to " + corpus.getLayoutFolder());
+    }
+}
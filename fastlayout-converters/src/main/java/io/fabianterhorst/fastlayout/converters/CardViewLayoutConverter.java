@@ -1,15 +1,39 @@
 package io.fabianterhorst.fastlayout.converters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
 @Converter
 public class CardViewLayoutConverter extends LayoutConverter {
 
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "app:cardCornerRadius",
+            "app:cardMaxElevation",
+            "app:cardUseCompatPadding",
+            "app:cardPreventCornerOverlap",
+            "app:contentPaddingLeft",
+            "app:contentPaddingTop",
+            "app:contentPaddingRight",
+            "app:contentPaddingBottom",
+            "app:contentPadding"));
+
     private Object padding[] = new Object[]{null, null, null, null};//left,top,right,bottom
 
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
+    @Override
+    public void reset() {
+        padding = new Object[]{null, null, null, null};
+    }
+
     @Override
     public LayoutAttribute onConvertLayoutAttribute(String attributeStartValue, String attributeValue, String attributeName, boolean isString) {
         switch (attributeName) {
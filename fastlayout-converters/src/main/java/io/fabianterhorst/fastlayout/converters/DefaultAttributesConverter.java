@@ -1,5 +1,10 @@
 package io.fabianterhorst.fastlayout.converters;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
 /**
@@ -8,6 +13,40 @@ import io.fabianterhorst.fastlayout.annotations.Converter;
 @Converter
 //Todo : split into ViewLayoutConverter and ViewGroupLayoutConverter
 public class DefaultAttributesConverter extends LayoutConverter {
+
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "android:gravity",
+            "android:foregroundGravity",
+            "android:layout_gravity",
+            "android:backgroundTintMode",
+            "android:foregroundTintMode",
+            "android:accessibilityLiveRegion",
+            "android:drawingCacheQuality",
+            "android:descendantFocusability",
+            "android:importantForAccessibility",
+            "android:visibility",
+            "android:textAlignment",
+            "android:textDirection",
+            "style",
+            "android:theme",
+            "android:background",
+            "android:textSize",
+            "android:animateLayoutChanges",
+            "android:transformPivotX",
+            "android:transformPivotY"));
+
+    private static final Set<String> PREFIXES = Collections.singleton("android:nextFocus");
+
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
+    @Override
+    public Set<String> getSupportedAttributePrefixes() {
+        return PREFIXES;
+    }
+
     //Todo : remove View., because the root layout always extends view
     @Override
     public LayoutAttribute onConvertLayoutAttributeValue(String attributeValue, String attributeName) {
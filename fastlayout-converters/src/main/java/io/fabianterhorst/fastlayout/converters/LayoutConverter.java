@@ -1,6 +1,8 @@
 package io.fabianterhorst.fastlayout.converters;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
@@ -18,21 +20,80 @@ public class LayoutConverter {
         return onFinish();
     }
 
+    /**
+     * names of the attributes this converter handles, the attribute of every other name is never passed to it
+     *
+     * @return attribute names or null when the converter handles every attribute
+     */
+    public Set<String> getSupportedAttributes() {
+        return null;
+    }
+
+    /**
+     * prefixes of attribute names this converter handles in addition to {@link #getSupportedAttributes()}, e.g. a namespace like "app:"
+     *
+     * @return attribute name prefixes
+     */
+    public Set<String> getSupportedAttributePrefixes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * called after {@link #finish()}, converters that collect attributes have to forget them here because they are reused for the next view
+     */
+    public void reset() {
+    }
+
     public LayoutAttribute onConvertLayoutAttributeValue(String attributeValue, String attributeName) {
         String attribute = String.valueOf(attributeValue);
-        boolean isString = true;
-
-        if ((attribute.startsWith("@") || attribute.startsWith("?")) && attribute.contains("/")) {
-            String[] attributeSplit = attribute.split("/");
-            String type = attributeSplit[0].replace("@+", "").replace("@", "").replace("?", "");
-            if (type.contains(":")) {
-                attribute = type.replace(":", ".R.") + "." + attributeSplit[1];
-            } else {
-                attribute = "R." + type + "." + attributeSplit[1];
+        if (attribute.isEmpty()) {
+            return onConvertLayoutAttribute(attribute, attributeName, true);
+        }
+        char first = attribute.charAt(0);
+        if (first == '@' || first == '?') {
+            int separator = attribute.indexOf('/');
+            if (separator >= 0) {
+                int end = attribute.indexOf('/', separator + 1);
+                String type = attribute.substring(0, separator).replace("@+", "").replace("@", "").replace("?", "");
+                String name = attribute.substring(separator + 1, end >= 0 ? end : attribute.length());
+                if (type.contains(":")) {
+                    attribute = type.replace(":", ".R.") + "." + name;
+                } else {
+                    attribute = "R." + type + "." + name;
+                }
+                return onConvertResource(attribute, attributeName, false);
+            }
+        } else if (first == '#') {
+            String color = toColorLiteral(attribute);
+            if (color != null) {
+                return onConvertLayoutAttribute(attribute, color, attributeName, false);
             }
-            isString = false;
+            return onConvertLayoutAttribute(attribute, "android.graphics.Color.parseColor(\"" + attribute + "\")", attributeName, false);
+        } else if (first == 'R' || first == 'a') {
+            if (attribute.startsWith("R.") || attribute.startsWith("android.R.style.")) {
+                return onConvertResource(attribute, attributeName, true);
+            }
+        }
+        if (attribute.endsWith("dp") || attribute.endsWith("dip")) {
+            String number = attribute.substring(0, attribute.length() - (attribute.endsWith("dip") ? 3 : 2));
+            if (isNumber(number)) {
+                return onConvertLayoutAttribute(attribute, "LayoutUtils.convertDpToPixel(" + number + "f, getContext())", attributeName, false);
+            }
+        } else if (attribute.equals("false") || attribute.equals("true")) {
+            return onConvertLayoutAttribute(attribute, attributeName, false);
+        } else if (attribute.endsWith("sp")) {
+            String number = attribute.substring(0, attribute.length() - 2);
+            if (isNumber(number)) {
+                return onConvertLayoutAttribute(attribute, "LayoutUtils.convertSpToPixel(" + number + "f, getContext())", attributeName, false);
+            }
+        }
+        if (isNumber(attribute)) {
+            return onConvertLayoutAttribute(attributeValue, attributeName, false);
         }
+        return onConvertLayoutAttribute(attribute, attributeName, true);
+    }
 
+    private LayoutAttribute onConvertResource(String attribute, String attributeName, boolean isString) {
         if (attribute.startsWith("R.dimen.")) {
             return onConvertLayoutAttribute(attribute, "(int) getContext().getResources().getDimension(" + attribute + ")", attributeName, false);
         } else if (attribute.startsWith("R.string.")) {
@@ -44,26 +105,9 @@ public class LayoutConverter {
         } else if (attribute.startsWith("R.attr.")) {
             return onConvertLayoutAttribute(attribute, "LayoutUtils.getAttrDrawable(getContext(), " + attribute + ")", attributeName, false);
         } else if (attribute.startsWith("R.style.")) {
-            String attributeStyle = attribute.replace("R.style.", "");
-            String style = attributeStyle.replace(".", "_");
-            String styleAttribute = "R.style." + style;
-            return onConvertLayoutAttribute(attribute, styleAttribute, attributeName, false);
+            return onConvertLayoutAttribute(attribute, "R.style." + attribute.substring("R.style.".length()).replace(".", "_"), attributeName, false);
         } else if (attribute.startsWith("android.R.style.")) {
-            String attributeStyle = attribute.replace("android.R.style.", "");
-            String style = attributeStyle.replace(".", "_");
-            String styleAttribute = "android.R.style." + style;
-            return onConvertLayoutAttribute(attribute, styleAttribute, attributeName, false);
-        } else if ((attribute.endsWith("dp") || attribute.endsWith("dip")) && isNumber(attribute.replace("dip", "").replace("dp", ""))) {
-            return onConvertLayoutAttribute(attribute, "LayoutUtils.convertDpToPixel(" + attribute.replace("dip", "f").replace("dp", "f") + ", getContext())", attributeName, false);
-        } else if (attribute.equals("false") || attribute.equals("true")) {
-            return onConvertLayoutAttribute(attribute, attributeName, false);
-        } else if (attribute.endsWith("sp") && isNumber(attribute.replace("sp", ""))) {
-            return onConvertLayoutAttribute(attribute, "LayoutUtils.convertSpToPixel(" + attribute.replace("sp", "f") + ", getContext())", attributeName, false);
-        } else if (attribute.startsWith("#")) {
-            //Todo : #999 isn´t working or #000
-            return onConvertLayoutAttribute(attribute, "android.graphics.Color.parseColor(\"" + attribute + "\")", attributeName, false);
-        } else if (isNumber(attribute)) {
-            return onConvertLayoutAttribute(attributeValue, attributeName, false);
+            return onConvertLayoutAttribute(attribute, "android.R.style." + attribute.substring("android.R.style.".length()).replace(".", "_"), attributeName, false);
         }
         return onConvertLayoutAttribute(attribute, attributeName, isString);
     }
@@ -121,13 +165,82 @@ public class LayoutConverter {
         return name + " = " + value;
     }
 
-    private boolean isNumber(Object text) {
-        try {
-            Double.parseDouble(String.valueOf(text));
-            return true;
-        } catch (NumberFormatException ignore) {
+    /**
+     * converts a #RGB, #ARGB, #RRGGBB or #AARRGGBB color to an int literal, the color does not have to be parsed at runtime
+     *
+     * @param color color
+     * @return int literal or null when the color is not a hex color
+     */
+    static String toColorLiteral(String color) {
+        String hex = color.substring(1);
+        for (int i = 0; i < hex.length(); i++) {
+            if (Character.digit(hex.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        switch (hex.length()) {
+            case 3:
+                hex = new String(new char[]{'f', 'f', hex.charAt(0), hex.charAt(0), hex.charAt(1), hex.charAt(1), hex.charAt(2), hex.charAt(2)});
+                break;
+            case 4:
+                hex = new String(new char[]{hex.charAt(0), hex.charAt(0), hex.charAt(1), hex.charAt(1), hex.charAt(2), hex.charAt(2), hex.charAt(3), hex.charAt(3)});
+                break;
+            case 6:
+                hex = "ff" + hex;
+                break;
+            case 8:
+                break;
+            default:
+                return null;
+        }
+        return "0x" + hex.toUpperCase();
+    }
+
+    /**
+     * checks for a decimal literal like 1, -2.5, .5, 1e3 or 2f without parsing it
+     *
+     * @param text text
+     * @return true when the text is a number
+     */
+    static boolean isNumber(String text) {
+        int length = text.length();
+        int i = 0;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        boolean digits = false;
+        while (i < length && Character.isDigit(text.charAt(i))) {
+            digits = true;
+            i++;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(text.charAt(i))) {
+                digits = true;
+                i++;
+            }
+        }
+        if (!digits) {
             return false;
         }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            boolean exponent = false;
+            while (i < length && Character.isDigit(text.charAt(i))) {
+                exponent = true;
+                i++;
+            }
+            if (!exponent) {
+                return false;
+            }
+        }
+        if (i < length && "fFdD".indexOf(text.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == length;
     }
 
     private static String capitalize(String name) {
@@ -1,7 +1,10 @@
 package io.fabianterhorst.fastlayout.converters;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by fabianterhorst on 18.05.16.
@@ -10,26 +13,98 @@ public class LayoutConverters {
 
     private List<LayoutConverter> converters;
 
+    /**
+     * attribute name to the converters that handle it, in the order of the converter list
+     */
+    private final Map<String, List<LayoutConverter>> dispatchTable = new HashMap<>();
+
+    /**
+     * converters that handle every attribute
+     */
+    private final List<LayoutConverter> wildcardConverters = new ArrayList<>();
+
+    /**
+     * converter that handled the attribute of the last convert call
+     */
+    private LayoutConverter lastConverter;
+
     public LayoutConverters() {
     }
 
     public void setAll(List<LayoutConverter> converters) {
         this.converters = converters;
+        dispatchTable.clear();
+        wildcardConverters.clear();
+        for (LayoutConverter layoutConverter : converters) {
+            Set<String> attributeNames = layoutConverter.getSupportedAttributes();
+            if (attributeNames == null) {
+                wildcardConverters.add(layoutConverter);
+            } else {
+                for (String attributeName : attributeNames) {
+                    if (!dispatchTable.containsKey(attributeName)) {
+                        dispatchTable.put(attributeName, getConvertersFor(attributeName));
+                    }
+                }
+            }
+        }
     }
 
-    public LayoutAttribute convert(String attributeValue, String attributeName, List<LayoutAttribute> attributes) {
-        LayoutAttribute layoutAttribute = null;
+    /**
+     * @param attributeName attribute name
+     * @return the converters that handle the attribute, in the order of the converter list
+     */
+    private List<LayoutConverter> getConverters(String attributeName) {
+        List<LayoutConverter> attributeConverters = dispatchTable.get(attributeName);
+        if (attributeConverters == null) {
+            attributeConverters = getConvertersFor(attributeName);
+            dispatchTable.put(attributeName, attributeConverters);
+        }
+        return attributeConverters;
+    }
+
+    private List<LayoutConverter> getConvertersFor(String attributeName) {
+        List<LayoutConverter> attributeConverters = new ArrayList<>();
+        boolean prefixed = false;
         for (LayoutConverter layoutConverter : converters) {
-            if (layoutAttribute == null) {
-                layoutAttribute = layoutConverter.convert(attributeValue, attributeName);
-                if (layoutAttribute != null && (layoutAttribute.getType() == LayoutAttribute.Type.ASSIGNED)) {
-                    break;
-                } else if (layoutAttribute != null && checkIfConstructorTypeIsAlreadyDefined(layoutAttribute.getType(), attributes)) {
+            Set<String> attributeNames = layoutConverter.getSupportedAttributes();
+            if (attributeNames == null || attributeNames.contains(attributeName)) {
+                attributeConverters.add(layoutConverter);
+            } else {
+                for (String prefix : layoutConverter.getSupportedAttributePrefixes()) {
+                    if (attributeName.startsWith(prefix)) {
+                        attributeConverters.add(layoutConverter);
+                        prefixed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (!prefixed && attributeConverters.size() == wildcardConverters.size()) {
+            return wildcardConverters;
+        }
+        return attributeConverters;
+    }
+
+    public LayoutAttribute convert(String attributeValue, String attributeName, List<LayoutAttribute> attributes) {
+        lastConverter = null;
+        for (LayoutConverter layoutConverter : getConverters(attributeName)) {
+            LayoutAttribute layoutAttribute = layoutConverter.convert(attributeValue, attributeName);
+            if (layoutAttribute != null) {
+                lastConverter = layoutConverter;
+                if (layoutAttribute.getType() != LayoutAttribute.Type.ASSIGNED && checkIfConstructorTypeIsAlreadyDefined(layoutAttribute.getType(), attributes)) {
                     return new LayoutAttribute();
                 }
+                return layoutAttribute;
             }
         }
-        return layoutAttribute;
+        return null;
+    }
+
+    /**
+     * @return the converter that handled the attribute of the last convert call or null when no converter handled it
+     */
+    public LayoutConverter getLastConverter() {
+        return lastConverter;
     }
 
     private boolean checkIfConstructorTypeIsAlreadyDefined(LayoutAttribute.Type type, List<LayoutAttribute> attributes) {
@@ -60,6 +135,7 @@ public class LayoutConverters {
             if (currentlyFinished != null) {
                 finished.addAll(currentlyFinished);
             }
+            layoutConverter.reset();
         }
         if (!checkAttributesForType(LayoutAttribute.Type.LAYOUT_CONSTRUCTOR_1, attributes)) {
             finished.add(new LayoutAttribute(LayoutAttribute.Type.LAYOUT_CONSTRUCTOR_1, "getContext()"));
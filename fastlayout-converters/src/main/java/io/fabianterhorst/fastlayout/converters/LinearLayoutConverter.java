@@ -1,5 +1,9 @@
 package io.fabianterhorst.fastlayout.converters;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
 /**
@@ -8,6 +12,16 @@ import io.fabianterhorst.fastlayout.annotations.Converter;
 @Converter
 public class LinearLayoutConverter extends LayoutConverter {
 
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "android:orientation",
+            "android:divider",
+            "android:showDividers"));
+
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
     @Override
     public LayoutAttribute onConvertLayoutAttribute(String attributeStartValue, String attributeValue, String attributeName, boolean isString) {
         switch (attributeName) {
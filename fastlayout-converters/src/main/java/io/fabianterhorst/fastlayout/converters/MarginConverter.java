@@ -1,7 +1,10 @@
 package io.fabianterhorst.fastlayout.converters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
@@ -11,8 +14,27 @@ import io.fabianterhorst.fastlayout.annotations.Converter;
 @Converter
 public class MarginConverter extends LayoutConverter {
 
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "android:layout_marginLeft",
+            "android:layout_marginTop",
+            "android:layout_marginRight",
+            "android:layout_marginBottom",
+            "android:layout_margin",
+            "android:layout_marginEnd",
+            "android:layout_marginStart"));
+
     private Object margin[] = new Object[]{null, null, null, null};//left,top,right,bottom
 
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
+    @Override
+    public void reset() {
+        margin = new Object[]{null, null, null, null};
+    }
+
     @Override
     public LayoutAttribute onConvertLayoutAttribute(String attributeStartValue, String attributeValue, String attributeName, boolean isString) {
         switch (attributeName) {
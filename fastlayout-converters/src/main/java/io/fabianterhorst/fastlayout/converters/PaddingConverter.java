@@ -1,7 +1,10 @@
 package io.fabianterhorst.fastlayout.converters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
@@ -11,10 +14,30 @@ import io.fabianterhorst.fastlayout.annotations.Converter;
 @Converter
 public class PaddingConverter extends LayoutConverter {
 
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "android:paddingLeft",
+            "android:paddingTop",
+            "android:paddingRight",
+            "android:paddingBottom",
+            "android:paddingStart",
+            "android:paddingEnd",
+            "android:padding"));
+
     private Object padding[] = new Object[]{null, null, null, null};//left,top,right,bottom
 
     private Object paddingRelative[] = new Object[]{null, null};//start,end
 
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
+    @Override
+    public void reset() {
+        padding = new Object[]{null, null, null, null};
+        paddingRelative = new Object[]{null, null};
+    }
+
     @Override
     public LayoutAttribute onConvertLayoutAttribute(String attributeStartValue, String attributeValue, String attributeName, boolean isString) {
         switch (attributeName) {
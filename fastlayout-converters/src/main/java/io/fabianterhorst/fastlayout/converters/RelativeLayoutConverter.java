@@ -1,7 +1,8 @@
 package io.fabianterhorst.fastlayout.converters;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import io.fabianterhorst.fastlayout.annotations.Converter;
 
@@ -11,34 +12,38 @@ import io.fabianterhorst.fastlayout.annotations.Converter;
 @Converter("RelativeLayout")
 public class RelativeLayoutConverter extends LayoutConverter {
 
-    private List<String> relativeParameters = new ArrayList<String>() {{
-        add("android:layout_above");
-        add("android:layout_alignBaseline");
-        add("android:layout_alignParentBottom");
-        add("android:layout_alignEnd");
-        add("android:layout_alignBottom");
-        add("android:layout_alignLeft");
-        add("android:layout_alignRight");
-        add("android:layout_alignStart");
-        add("android:layout_alignTop");
-        add("android:layout_below");
-        add("android:layout_centerHorizontal");
-        add("android:layout_centerInParent");
-        add("android:layout_centerVertical");
-        add("android:layout_toEndOf");
-        add("android:layout_toLeftOf");
-        add("android:layout_toRightOf");
-        add("android:layout_toStartOf");
-        add("android:layout_alignParentEnd");
-        add("android:layout_alignParentLeft");
-        add("android:layout_alignParentRight");
-        add("android:layout_alignParentStart");
-        add("android:layout_alignParentTop");
-    }};
+    private static final Set<String> RELATIVE_PARAMETERS = new HashSet<>(Arrays.asList(
+            "android:layout_above",
+            "android:layout_alignBaseline",
+            "android:layout_alignParentBottom",
+            "android:layout_alignEnd",
+            "android:layout_alignBottom",
+            "android:layout_alignLeft",
+            "android:layout_alignRight",
+            "android:layout_alignStart",
+            "android:layout_alignTop",
+            "android:layout_below",
+            "android:layout_centerHorizontal",
+            "android:layout_centerInParent",
+            "android:layout_centerVertical",
+            "android:layout_toEndOf",
+            "android:layout_toLeftOf",
+            "android:layout_toRightOf",
+            "android:layout_toStartOf",
+            "android:layout_alignParentEnd",
+            "android:layout_alignParentLeft",
+            "android:layout_alignParentRight",
+            "android:layout_alignParentStart",
+            "android:layout_alignParentTop"));
+
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return RELATIVE_PARAMETERS;
+    }
 
     @Override
     public LayoutAttribute onConvertLayoutAttribute(String attributeStartValue, String attributeValue, String attributeName, boolean isString) {
-        if(relativeParameters.contains(attributeName)) {
+        if(RELATIVE_PARAMETERS.contains(attributeName)) {
             return new LayoutAttribute(LayoutAttribute.Type.PARAM, "addRule(" + "RelativeLayout." + stringToConstant(attributeToName(attributeName.replace("_to", "_").replace("layout_", ""))).toUpperCase() + (!attributeValue.equals("true") && !attributeValue.equals("false") ? ", " + attributeValue : ", " + "RelativeLayout." + attributeValue.toUpperCase()) + ")");
         }
         return null;
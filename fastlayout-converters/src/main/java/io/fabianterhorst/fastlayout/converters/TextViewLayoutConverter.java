@@ -1,17 +1,48 @@
 package io.fabianterhorst.fastlayout.converters;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by fabianterhorst on 20.05.16.
  */
 public class TextViewLayoutConverter extends LayoutConverter {
 
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "android:ellipsize",
+            "android:drawablePadding",
+            "android:drawableTintMode",
+            "android:drawableTint",
+            "android:drawableLeft",
+            "android:drawableTop",
+            "android:drawableRight",
+            "android:drawableBottom",
+            "android:drawableStart",
+            "android:drawableEnd",
+            "android:maxLength",
+            "android:textAllCaps",
+            "android:textColorHint",
+            "android:textColorLink",
+            "android:textColorHighlight"));
+
     private Object drawable[] = new Object[]{null, null, null, null};//left,top,right,bottom
 
     private Object drawableRelative[] = new Object[]{null, null};//start,end
 
+    @Override
+    public Set<String> getSupportedAttributes() {
+        return ATTRIBUTES;
+    }
+
+    @Override
+    public void reset() {
+        drawable = new Object[]{null, null, null, null};
+        drawableRelative = new Object[]{null, null};
+    }
+
     @Override
     public LayoutAttribute onConvertLayoutAttributeValue(String attributeValue, String attributeName) {
         switch(attributeName) {
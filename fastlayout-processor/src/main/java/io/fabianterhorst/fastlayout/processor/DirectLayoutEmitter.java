@@ -0,0 +1,613 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+/**
+ * Writes the generated classes directly from the layout tree, without interpreting a template or reading the tree through reflection
+ *
+ * The output is the same as the output of layout.ftl, layoutcache.ftl and sharedlayouts.ftl, both have to be changed together.
+ */
+class DirectLayoutEmitter implements LayoutEmitter {
+
+    private static final String INDENT = "        ";
+
+    @Override
+    public void emitLayout(Writer writer, String packageName, String keyWrapperClassName, LayoutEntity rootLayout, LayoutDimensions dimensions, LayoutMethod init, List<LayoutMethod> methods, List<LayoutMethod> lazyMethods, ResolvedValues values, LayoutViewHolder viewHolder, LayoutBindings bindings) throws IOException {
+        boolean hasDimensions = !dimensions.getDp().isEmpty() || !dimensions.getSp().isEmpty();
+        boolean hasLazy = !lazyMethods.isEmpty();
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import android.content.Context;\n");
+        if (viewHolder != null) {
+            out.append("import android.support.v7.widget.RecyclerView;\n");
+        }
+        out.append("import android.util.AttributeSet;\n\n");
+        out.append("import android.view.*;\n");
+        out.append("import android.widget.*;\n");
+        out.append("import android.util.TypedValue;\n\n");
+        if (hasDimensions) {
+            out.append("import io.fabianterhorst.fastlayout.DimensionTable;\n");
+        }
+        out.append("import io.fabianterhorst.fastlayout.ILayout;\n");
+        out.append("import io.fabianterhorst.fastlayout.LayoutUtils;\n");
+        if (hasLazy) {
+            out.append("import io.fabianterhorst.fastlayout.LazyView;\n");
+        }
+        out.append('\n');
+        out.append("import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;\n");
+        out.append("import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;\n\n");
+        out.append("public class ").append(keyWrapperClassName).append(" extends ").append(rootLayout.getName()).append(" implements ILayout");
+        if (hasLazy) {
+            out.append(", LazyView.Factory");
+        }
+        out.append(" {\n\n");
+        if (hasDimensions) {
+            out.append("    private static final DimensionTable DIMENSIONS = new DimensionTable(new float[]{");
+            appendJoined(out, dimensions.getDp());
+            out.append("}, new float[]{");
+            appendJoined(out, dimensions.getSp());
+            out.append("});\n\n");
+        }
+        if (bindings != null && bindings.isRemembering()) {
+            out.append("    private static final Object UNBOUND = new Object();\n\n");
+        }
+        if (!values.isEmpty()) {
+            out.append("    private ").append(values.getClassName()).append(" mResolvedValues;\n\n");
+        }
+        List<LayoutEntity> descendants = rootLayout.getDescendants();
+        for (LayoutEntity child : descendants) {
+            out.append("    private ").append(child.getName()).append(' ').append(child.getId()).append(";\n\n");
+            if (child.isLazyRoot()) {
+                out.append("    private LazyView ").append(child.getLazy().getStubName()).append(";\n\n");
+            }
+        }
+        if (bindings != null) {
+            for (LayoutBindings.BoundView view : bindings.getViews()) {
+                if (view.isText()) {
+                    out.append("    private Object ").append(view.getTextField()).append(" = UNBOUND;\n\n");
+                }
+                if (view.isImage()) {
+                    out.append("    private Object ").append(view.getImageField()).append(" = UNBOUND;\n\n");
+                }
+            }
+        }
+
+        List<LayoutAttribute> rootAttributes = rootLayout.getAttributes();
+        out.append("    public ").append(keyWrapperClassName).append("(Context context) {\n");
+        appendSuperCall(out, rootAttributes);
+        out.append(INDENT).append("init();\n");
+        out.append("    }\n\n");
+        appendAttrsConstructor(out, keyWrapperClassName, rootAttributes, "Context context, AttributeSet attrs", "");
+        appendAttrsConstructor(out, keyWrapperClassName, rootAttributes, "Context context, AttributeSet attrs, int defStyleAttr", "");
+        appendAttrsConstructor(out, keyWrapperClassName, rootAttributes, "Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes", ", defStyleRes");
+        if (!values.isEmpty()) {
+            out.append("    private ").append(keyWrapperClassName).append("(Context context, ").append(values.getClassName()).append(" resolvedValues) {\n");
+            appendSuperCall(out, rootAttributes);
+            out.append(INDENT).append("mResolvedValues = resolvedValues;\n");
+            out.append(INDENT).append("init();\n");
+            out.append("    }\n\n");
+        }
+
+        out.append("    private void init() {\n");
+        appendDeclarations(out, init);
+        String rootParams = rootLayout.getId() + "LayoutParams";
+        out.append(INDENT).append(rootLayout.getLayoutParamsName()).append(' ').append(rootParams).append(" = new ").append(rootLayout.getLayoutParamsName()).append('(');
+        appendParamsConstructor(out, rootAttributes);
+        out.append(");\n");
+        for (LayoutAttribute attribute : rootAttributes) {
+            if (attribute.getType() == LayoutAttribute.Type.PARAM) {
+                out.append(INDENT).append(rootParams).append('.').append(attribute.getValue()).append(";\n");
+            } else if (attribute.getType() == LayoutAttribute.Type.LAYOUT) {
+                out.append(INDENT).append(attribute.getValue()).append(";\n");
+            }
+        }
+        out.append(INDENT).append("this.setLayoutParams(").append(rootParams).append(");\n\n");
+        appendViews(out, init);
+        for (LayoutMethod method : methods) {
+            out.append(INDENT).append(method.getName()).append("();\n");
+        }
+        out.append("    }\n\n");
+
+        for (LayoutMethod method : methods) {
+            out.append("    private void ").append(method.getName()).append("() {\n");
+            appendDeclarations(out, method);
+            appendViews(out, method);
+            out.append("    }\n\n");
+        }
+        for (LayoutMethod method : lazyMethods) {
+            appendLazyMethod(out, method);
+        }
+        for (LayoutEntity child : descendants) {
+            out.append("    public ").append(child.getName()).append(" get").append(capitalize(child.getId())).append("() {\n");
+            if (child.getLazy() != null) {
+                out.append(INDENT).append("if (").append(child.getId()).append(" == null) {\n");
+                out.append(INDENT).append("    ").append(child.getLazy().getStubName()).append(".inflate();\n");
+                out.append(INDENT).append("}\n");
+            }
+            out.append(INDENT).append("return ").append(child.getId()).append(";\n");
+            out.append("    }\n\n");
+        }
+        if (bindings != null) {
+            appendBindings(out, bindings);
+        }
+        if (hasLazy) {
+            out.append("    @Override\n");
+            out.append("    public void inflate(LazyView view, int index) {\n");
+            out.append("        switch (index) {\n");
+            for (LayoutMethod method : lazyMethods) {
+                if (method.getLazy() != null) {
+                    out.append("            case ").append(method.getLazy().getIndex()).append(":\n");
+                    out.append("                ").append(method.getName()).append("();\n");
+                    out.append("                break;\n");
+                }
+            }
+            out.append("        }\n");
+            out.append("    }\n\n");
+        }
+        if (!values.isEmpty()) {
+            out.append("    private ").append(values.getClassName()).append(" resolveValues(Context context) {\n");
+            out.append("        if (mResolvedValues == null || !mResolvedValues.matches(context)) {\n");
+            out.append("            mResolvedValues = new ").append(values.getClassName()).append("(context);\n");
+            out.append("        }\n");
+            out.append("        return mResolvedValues;\n");
+            out.append("    }\n\n");
+        }
+        out.append("    @Override\n");
+        out.append("    public ILayout newInstance(Context context) {\n");
+        out.append("        return new ").append(keyWrapperClassName).append(values.isEmpty() ? "(context);\n" : "(context, mResolvedValues);\n");
+        out.append("    }\n");
+        if (!values.isEmpty()) {
+            appendResolvedValues(out, values);
+        }
+        if (viewHolder != null) {
+            appendViewHolder(out, keyWrapperClassName, viewHolder);
+        }
+        out.append("}\n");
+        writer.append(out);
+    }
+
+    private static void appendSuperCall(StringBuilder out, List<LayoutAttribute> rootAttributes) {
+        out.append(INDENT).append("super(");
+        for (LayoutAttribute attribute : rootAttributes) {
+            if (attribute.isLayoutConstructor()) {
+                out.append(attribute.getValue().replace("getContext()", "context"));
+                if (!attribute.isLast()) {
+                    out.append(',');
+                }
+            }
+        }
+        out.append(");\n");
+    }
+
+    /**
+     * a bind method only calls the setter when the value differs from the one it set last, visibility is compared with the view itself
+     */
+    private static void appendBindings(StringBuilder out, LayoutBindings bindings) {
+        for (LayoutBindings.BoundView view : bindings.getViews()) {
+            String id = view.getId();
+            out.append("    public void bind").append(view.getMethodName()).append("Visibility(int visibility) {\n");
+            out.append(INDENT).append("if (").append(id).append(".getVisibility() != visibility) {\n");
+            out.append(INDENT).append("    ").append(id).append(".setVisibility(visibility);\n");
+            out.append(INDENT).append("}\n");
+            out.append("    }\n\n");
+            if (view.isText()) {
+                String field = view.getTextField();
+                out.append("    public void bind").append(view.getMethodName()).append("Text(CharSequence text) {\n");
+                out.append(INDENT).append("if (").append(field).append(" == UNBOUND || text instanceof android.text.Spanned || !android.text.TextUtils.equals(text, (String) ")
+                        .append(field).append(")) {\n");
+                out.append(INDENT).append("    ").append(field).append(" = text instanceof android.text.Spanned ? UNBOUND : text != null ? text.toString() : null;\n");
+                out.append(INDENT).append("    ").append(id).append(".setText(text);\n");
+                out.append(INDENT).append("}\n");
+                out.append("    }\n\n");
+            }
+            if (view.isImage()) {
+                String field = view.getImageField();
+                out.append("    public void bind").append(view.getMethodName()).append("ImageDrawable(android.graphics.drawable.Drawable drawable) {\n");
+                out.append(INDENT).append("if (drawable != ").append(field).append(") {\n");
+                out.append(INDENT).append("    ").append(field).append(" = drawable;\n");
+                out.append(INDENT).append("    ").append(id).append(".setImageDrawable(drawable);\n");
+                out.append(INDENT).append("}\n");
+                out.append("    }\n\n");
+                out.append("    public void bind").append(view.getMethodName()).append("ImageResource(int resId) {\n");
+                out.append(INDENT).append("if (!(").append(field).append(" instanceof Integer) || (Integer) ").append(field).append(" != resId) {\n");
+                out.append(INDENT).append("    ").append(field).append(" = resId;\n");
+                out.append(INDENT).append("    ").append(id).append(".setImageResource(resId);\n");
+                out.append(INDENT).append("}\n");
+                out.append("    }\n\n");
+            }
+        }
+    }
+
+    /**
+     * the nested view holder copies the views with an id from the layout, like a hand written holder would
+     */
+    private static void appendViewHolder(StringBuilder out, String keyWrapperClassName, LayoutViewHolder viewHolder) {
+        String className = viewHolder.getClassName();
+        out.append('\n');
+        out.append("    public static class ").append(className).append(" extends RecyclerView.ViewHolder {\n\n");
+        for (LayoutEntity view : viewHolder.getViews()) {
+            out.append("        public final ").append(view.getName()).append(' ').append(view.getId()).append(";\n\n");
+        }
+        out.append("        public ").append(className).append("(ViewGroup parent) {\n");
+        out.append("            this(new ").append(keyWrapperClassName).append("(parent.getContext()));\n");
+        out.append("        }\n\n");
+        out.append("        public ").append(className).append('(').append(keyWrapperClassName).append(" layout) {\n");
+        out.append("            super(layout);\n");
+        for (LayoutEntity view : viewHolder.getViews()) {
+            out.append("            this.").append(view.getId()).append(" = layout.").append(view.getId()).append(";\n");
+        }
+        out.append("        }\n\n");
+        out.append("        public ").append(keyWrapperClassName).append(" getLayout() {\n");
+        out.append("            return (").append(keyWrapperClassName).append(") itemView;\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    /**
+     * the nested class with the value lookups, resolved once per configuration and shared with the instances newInstance creates
+     */
+    private static void appendResolvedValues(StringBuilder out, ResolvedValues values) {
+        out.append('\n');
+        out.append("    private static final class ").append(values.getClassName()).append(" {\n\n");
+        out.append("        final android.content.res.Configuration configuration;\n\n");
+        for (String field : values.getFields()) {
+            out.append("        final ").append(field).append(";\n\n");
+        }
+        out.append("        ").append(values.getClassName()).append("(Context ").append(values.getContextName()).append(") {\n");
+        for (String statement : values.getStatements()) {
+            out.append("            ").append(statement).append(";\n");
+        }
+        out.append("        }\n\n");
+        out.append("        boolean matches(Context context) {\n");
+        out.append("            return configuration.equals(context.getResources().getConfiguration());\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    /**
+     * a constructor with an AttributeSet, only the context and the default style of the converted root layout are passed on
+     */
+    private static void appendAttrsConstructor(StringBuilder out, String keyWrapperClassName, List<LayoutAttribute> rootAttributes, String parameters, String suffix) {
+        out.append("    public ").append(keyWrapperClassName).append('(').append(parameters).append(") {\n");
+        out.append(INDENT).append("super(");
+        for (LayoutAttribute attribute : rootAttributes) {
+            if (attribute.getType() == LayoutAttribute.Type.LAYOUT_CONSTRUCTOR_1) {
+                out.append(attribute.getValue().replace("getContext()", "context"));
+            }
+        }
+        out.append(", attrs");
+        for (LayoutAttribute attribute : rootAttributes) {
+            if (attribute.getType() == LayoutAttribute.Type.LAYOUT_CONSTRUCTOR_3) {
+                out.append(", ").append(attribute.getValue());
+            }
+        }
+        out.append(suffix).append(");\n");
+        out.append(INDENT).append("init();\n");
+        out.append("    }\n\n");
+    }
+
+    /**
+     * an inflate method creates the root of its subtree and replaces the placeholder with it, the root gets the layout params of the placeholder,
+     * the methods it calls only create views
+     */
+    private static void appendLazyMethod(StringBuilder out, LayoutMethod method) {
+        out.append("    private void ").append(method.getName()).append("() {\n");
+        appendDeclarations(out, method);
+        LazySubtree lazy = method.getLazy();
+        if (lazy != null) {
+            LayoutEntity root = lazy.getRoot();
+            out.append(INDENT).append(root.getId()).append(" = ");
+            appendNew(out, root);
+            for (LayoutAttribute attribute : root.getAttributes()) {
+                if (attribute.getType() == LayoutAttribute.Type.LAYOUT) {
+                    out.append(INDENT).append(root.getId()).append('.').append(attribute.getValue()).append(";\n");
+                }
+            }
+            out.append('\n');
+        }
+        appendViews(out, method);
+        for (LayoutMethod call : method.getCalls()) {
+            out.append(INDENT).append(call.getName()).append("();\n");
+        }
+        if (lazy != null) {
+            out.append(INDENT).append(lazy.getStubName()).append(".replaceWith(").append(lazy.getRoot().getId()).append(");\n");
+        }
+        out.append("    }\n\n");
+    }
+
+    private static void appendDeclarations(StringBuilder out, LayoutMethod method) {
+        for (String declaration : method.getDeclarations()) {
+            out.append(INDENT).append(declaration).append(";\n");
+        }
+    }
+
+    private static void appendViews(StringBuilder out, LayoutMethod method) {
+        for (LayoutEntity child : method.getLayouts()) {
+            if (child.isLazyRoot()) {
+                appendPlaceholder(out, child);
+                continue;
+            }
+            if (child.getShared() != null) {
+                appendSharedCall(out, child, child.getShared());
+            } else {
+                out.append(INDENT).append(child.getId()).append(" = ");
+                appendNew(out, child);
+            }
+            appendAttached(out, child);
+        }
+    }
+
+    /**
+     * creates the placeholder of a lazy subtree with the layout params of the subtree root, siblings that are positioned relative to it stay in
+     * place, it passes its index to the inflate method of the layout
+     */
+    private static void appendPlaceholder(StringBuilder out, LayoutEntity child) {
+        LazySubtree lazy = child.getLazy();
+        out.append(INDENT).append(lazy.getStubName()).append(" = new LazyView(getContext(), this, ").append(lazy.getIndex()).append(");\n");
+        if (lazy.getStubId() != null) {
+            out.append(INDENT).append(lazy.getStubName()).append(".setId(").append(lazy.getStubId()).append(");\n");
+        }
+        String params = child.getId() + "LayoutParams";
+        out.append(INDENT).append(child.getLayoutParamsName()).append(' ').append(params).append(" = new ").append(child.getLayoutParamsName()).append('(');
+        appendParamsConstructor(out, child.getAttributes());
+        out.append(");\n");
+        for (LayoutAttribute attribute : child.getAttributes()) {
+            if (attribute.getType() == LayoutAttribute.Type.PARAM) {
+                out.append(INDENT).append(params).append('.').append(attribute.getValue()).append(";\n");
+            }
+        }
+        out.append(INDENT).append(child.getParent()).append(".addView(").append(lazy.getStubName()).append(", ").append(params).append(");\n\n");
+    }
+
+    /**
+     * assigns the views a shared method returns to the fields of the layout
+     */
+    static void appendSharedCall(StringBuilder out, LayoutEntity child, SharedSubtree shared) {
+        String views = child.getId() + "Views";
+        out.append(INDENT).append("View[] ").append(views).append(" = ").append(shared.getClassName()).append('.').append(shared.getMethodName()).append("(this);\n");
+        out.append(INDENT).append(child.getId()).append(" = (").append(child.getName()).append(") ").append(views).append("[0];\n");
+        List<LayoutEntity> descendants = child.getDescendants();
+        for (int i = 0; i < descendants.size(); i++) {
+            LayoutEntity view = descendants.get(i);
+            out.append(INDENT).append(view.getId()).append(" = (").append(view.getName()).append(") ").append(views).append('[').append(i + 1).append("];\n");
+        }
+    }
+
+    private static void appendNew(StringBuilder out, LayoutEntity child) {
+        out.append("new ").append(child.getName()).append('(');
+        for (LayoutAttribute attribute : child.getAttributes()) {
+            if (attribute.isLayoutConstructor()) {
+                out.append(attribute.getValue());
+                if (!attribute.isLast()) {
+                    out.append(',');
+                }
+            }
+        }
+        out.append(");\n");
+    }
+
+    /**
+     * creates the layout params of the view, sets the attributes and adds the view to its parent
+     */
+    private static void appendAttached(StringBuilder out, LayoutEntity child) {
+        String id = child.getId();
+        String params = id + "LayoutParams";
+        List<LayoutAttribute> attributes = child.getAttributes();
+        out.append(INDENT).append(child.getLayoutParamsName()).append(' ').append(params).append(" = new ").append(child.getLayoutParamsName()).append('(');
+        appendParamsConstructor(out, attributes);
+        out.append(");\n");
+        for (LayoutAttribute attribute : attributes) {
+            if (attribute.getType() == LayoutAttribute.Type.PARAM) {
+                out.append(INDENT).append(params).append('.').append(attribute.getValue()).append(";\n");
+            } else if (attribute.getType() == LayoutAttribute.Type.LAYOUT) {
+                out.append(INDENT).append(id).append('.').append(attribute.getValue()).append(";\n");
+            }
+        }
+        out.append(INDENT).append(child.getParent()).append(".addView(").append(id).append(", ").append(params).append(");\n\n");
+    }
+
+    private static void appendParamsConstructor(StringBuilder out, List<LayoutAttribute> attributes) {
+        for (LayoutAttribute attribute : attributes) {
+            if (attribute.isParamsConstructor()) {
+                out.append(attribute.getValue());
+                if (!attribute.isLast()) {
+                    out.append(',');
+                }
+            }
+        }
+    }
+
+    private static void appendJoined(StringBuilder out, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(values.get(i));
+        }
+    }
+
+    /**
+     * same as ?capitalize of the template, the first letter of the id is upper case and the others are lower case
+     */
+    private static String capitalize(String id) {
+        return id.isEmpty() ? id : id.substring(0, 1).toUpperCase() + id.substring(1).toLowerCase();
+    }
+
+    @Override
+    public void emitSharedLayouts(Writer writer, String packageName, LayoutDimensions dimensions, List<SharedSubtree> subtrees) throws IOException {
+        boolean hasDimensions = !dimensions.getDp().isEmpty() || !dimensions.getSp().isEmpty();
+        String className = SubtreeSharing.CLASS_NAME;
+        StringBuilder out = new StringBuilder(4096);
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import android.content.Context;\n\n");
+        out.append("import android.view.*;\n");
+        out.append("import android.widget.*;\n");
+        out.append("import android.util.TypedValue;\n\n");
+        if (hasDimensions) {
+            out.append("import io.fabianterhorst.fastlayout.DimensionTable;\n");
+        }
+        out.append("import io.fabianterhorst.fastlayout.LayoutUtils;\n\n");
+        out.append("import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;\n");
+        out.append("import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;\n\n");
+        out.append("final class ").append(className).append(" {\n\n");
+        if (hasDimensions) {
+            out.append("    private static final DimensionTable DIMENSIONS = new DimensionTable(new float[]{");
+            appendJoined(out, dimensions.getDp());
+            out.append("}, new float[]{");
+            appendJoined(out, dimensions.getSp());
+            out.append("});\n\n");
+        }
+        out.append("    private ").append(className).append("() {\n");
+        out.append("    }\n");
+        for (SharedSubtree subtree : subtrees) {
+            out.append('\n');
+            appendSharedMethod(out, subtree);
+        }
+        out.append("}\n");
+        writer.append(out);
+    }
+
+    static void appendSharedMethod(StringBuilder out, SharedSubtree subtree) {
+        out.append("    static View[] ").append(subtree.getMethodName()).append("(View ").append(subtree.getHostName()).append(") {\n");
+        for (String declaration : subtree.getDeclarations()) {
+            out.append(INDENT).append(declaration).append(";\n");
+        }
+        appendSharedViews(out, subtree);
+        LayoutEntity root = subtree.getRoot();
+        out.append(INDENT).append("return new View[]{").append(root.getId());
+        for (LayoutEntity child : root.getDescendants()) {
+            out.append(", ").append(child.getId());
+        }
+        out.append("};\n");
+        out.append("    }\n");
+    }
+
+    /**
+     * the statements of a shared method that create the views, a layout without the shared method would contain them for every use
+     */
+    static void appendSharedViews(StringBuilder out, SharedSubtree subtree) {
+        LayoutEntity root = subtree.getRoot();
+        out.append(INDENT).append(root.getName()).append(' ').append(root.getId()).append(" = ");
+        appendNew(out, root);
+        for (LayoutAttribute attribute : root.getAttributes()) {
+            if (attribute.getType() == LayoutAttribute.Type.LAYOUT) {
+                out.append(INDENT).append(root.getId()).append('.').append(attribute.getValue()).append(";\n");
+            }
+        }
+        out.append('\n');
+        for (LayoutEntity child : root.getDescendants()) {
+            out.append(INDENT).append(child.getName()).append(' ').append(child.getId()).append(" = ");
+            appendNew(out, child);
+            appendAttached(out, child);
+        }
+    }
+
+    /**
+     * the variant of a layout is selected once per configuration, the first variant whose qualifiers match is the best one
+     */
+    private static void appendVariantSelection(StringBuilder out, Map<String, LayoutObject> layouts, Map<String, List<String>> variants) {
+        out.append('\n');
+        out.append("    @Override\n");
+        out.append("    protected String selectVariant(Configuration configuration, String name) {\n");
+        out.append("        switch (name) {\n");
+        for (Map.Entry<String, List<String>> layout : variants.entrySet()) {
+            out.append("            case ").append(layout.getKey()).append(":\n");
+            for (String variant : layout.getValue()) {
+                out.append("                if (").append(layouts.get(variant).getCondition()).append(") {\n");
+                out.append("                    return ").append(variant).append(";\n");
+                out.append("                }\n");
+            }
+            out.append("                break;\n");
+        }
+        out.append("        }\n");
+        out.append("        return name;\n");
+        out.append("    }\n");
+    }
+
+    @Override
+    public void emitLayoutCache(Writer writer, String packageName, Map<String, LayoutObject> layouts, Map<String, List<String>> variants) throws IOException {
+        boolean hasVariants = !variants.isEmpty();
+        StringBuilder out = new StringBuilder(2048);
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import android.content.Context;\n");
+        if (hasVariants) {
+            out.append("import android.content.res.Configuration;\n");
+        }
+        out.append("import android.support.annotation.LayoutRes;\n");
+        out.append("import android.support.annotation.StringDef;\n");
+        out.append("import android.support.annotation.NonNull;\n");
+        out.append("import android.view.View;\n\n");
+        out.append("import java.lang.annotation.Retention;\n");
+        out.append("import java.lang.annotation.RetentionPolicy;\n\n");
+        out.append("import io.fabianterhorst.fastlayout.AbstractLayoutCache;\n");
+        out.append("import io.fabianterhorst.fastlayout.ILayout;\n");
+        out.append("import io.fabianterhorst.fastlayout.LayoutFactory;\n\n");
+        out.append("public class LayoutCache extends AbstractLayoutCache {\n\n");
+        for (Map.Entry<String, LayoutObject> layout : layouts.entrySet()) {
+            out.append("    public static final String ").append(layout.getKey()).append(" = \"").append(layout.getValue().getName()).append("\";\n\n");
+        }
+        out.append("    private static final String[] NAMES = {");
+        String separator = "";
+        for (String key : layouts.keySet()) {
+            out.append(separator).append(key);
+            separator = ", ";
+        }
+        out.append("};\n\n");
+        out.append("    private static final LayoutFactory[] FACTORIES = {\n");
+        separator = "";
+        for (LayoutObject layout : layouts.values()) {
+            out.append(separator);
+            out.append("        new LayoutFactory() {\n");
+            out.append("            @Override\n");
+            out.append("            public ILayout create(Context context) {\n");
+            out.append("                return new ").append(layout.getName()).append("(context);\n");
+            out.append("            }\n");
+            out.append("        }");
+            separator = ",\n";
+        }
+        if (!layouts.isEmpty()) {
+            out.append('\n');
+        }
+        out.append("    };\n\n");
+        out.append("    private static final int[] LAYOUT_IDS = {");
+        separator = "";
+        for (LayoutObject layout : layouts.values()) {
+            out.append(separator).append(layout.getLayoutId());
+            separator = ", ";
+        }
+        out.append("};\n\n");
+        out.append("    @StringDef({");
+        for (String key : layouts.keySet()) {
+            out.append(key).append(',');
+        }
+        out.append("})\n");
+        out.append("    @Retention(RetentionPolicy.SOURCE)\n");
+        out.append("    public @interface LayoutName {\n");
+        out.append("    }\n\n");
+        out.append("    private static final class InstanceHolder {\n");
+        out.append("        static final LayoutCache INSTANCE = new LayoutCache();\n");
+        out.append("    }\n\n");
+        out.append("    public LayoutCache() {\n");
+        out.append("        super(NAMES, FACTORIES, LAYOUT_IDS, ").append(hasVariants).append(");\n");
+        out.append("    }\n\n");
+        out.append("    public static LayoutCache getInstance() {\n");
+        out.append("        return InstanceHolder.INSTANCE;\n");
+        out.append("    }\n\n");
+        out.append("    public <T extends View> T getLayout(@NonNull Context context, @LayoutName String name) {\n");
+        out.append("        return (T) obtainLayout(context, indexOf(name));\n");
+        out.append("    }\n\n");
+        out.append("    public <T extends View> T getLayout(@NonNull Context context, @LayoutRes int layoutId) {\n");
+        out.append("        return (T) obtainLayout(context, indexOf(layoutId));\n");
+        out.append("    }\n");
+        if (hasVariants) {
+            appendVariantSelection(out, layouts, variants);
+        }
+        out.append("}\n");
+        writer.append(out);
+    }
+}
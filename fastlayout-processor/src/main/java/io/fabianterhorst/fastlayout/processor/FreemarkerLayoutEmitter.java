@@ -0,0 +1,67 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+
+/**
+ * Renders the layout.ftl, layoutcache.ftl and sharedlayouts.ftl templates
+ */
+class FreemarkerLayoutEmitter implements LayoutEmitter {
+
+    private final Configuration freemarkerConfiguration;
+
+    FreemarkerLayoutEmitter(Configuration freemarkerConfiguration) {
+        this.freemarkerConfiguration = freemarkerConfiguration;
+    }
+
+    @Override
+    public void emitLayout(Writer writer, String packageName, String keyWrapperClassName, LayoutEntity rootLayout, LayoutDimensions dimensions, LayoutMethod init, List<LayoutMethod> methods, List<LayoutMethod> lazyMethods, ResolvedValues values, LayoutViewHolder viewHolder, LayoutBindings bindings) throws IOException {
+        Map<String, Object> args = new HashMap<>();
+        //Layout Wrapper
+        args.put("package", packageName);
+        args.put("keyWrapperClassName", keyWrapperClassName);
+        args.put("rootLayout", rootLayout);
+        args.put("dimensions", dimensions);
+        args.put("init", init);
+        args.put("methods", methods);
+        args.put("lazyMethods", lazyMethods);
+        args.put("values", values);
+        args.put("viewHolder", viewHolder);
+        args.put("bindings", bindings);
+        process("layout.ftl", args, writer);
+    }
+
+    @Override
+    public void emitLayoutCache(Writer writer, String packageName, Map<String, LayoutObject> layouts, Map<String, List<String>> variants) throws IOException {
+        Map<String, Object> args = new HashMap<>();
+        //Layout Cache Wrapper
+        args.put("package", packageName);
+        args.put("layouts", layouts);
+        args.put("variants", variants);
+        process("layoutcache.ftl", args, writer);
+    }
+
+    @Override
+    public void emitSharedLayouts(Writer writer, String packageName, LayoutDimensions dimensions, List<SharedSubtree> subtrees) throws IOException {
+        Map<String, Object> args = new HashMap<>();
+        args.put("package", packageName);
+        args.put("className", SubtreeSharing.CLASS_NAME);
+        args.put("dimensions", dimensions);
+        args.put("subtrees", subtrees);
+        process("sharedlayouts.ftl", args, writer);
+    }
+
+    private void process(String templateName, Map<String, Object> args, Writer writer) throws IOException {
+        try {
+            freemarkerConfiguration.getTemplate(templateName).process(args, writer);
+        } catch (TemplateException e) {
+            throw new IOException(templateName + ": " + e.getMessage(), e);
+        }
+    }
+}
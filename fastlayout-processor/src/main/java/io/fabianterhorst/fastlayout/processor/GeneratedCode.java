@@ -0,0 +1,58 @@
+package io.fabianterhorst.fastlayout.processor;
+
+/**
+ * Rewrites of converted attribute values that only touch their code, never their string and char literals
+ *
+ * A value like setText("call getContext() here") keeps the text as written while the code around it is rewritten.
+ */
+final class GeneratedCode {
+
+    private GeneratedCode() {
+    }
+
+    /**
+     * @param value converted attribute value
+     * @return the value with the content of its literals replaced by spaces, a match in the code has the same position in the value
+     */
+    static String maskLiterals(String value) {
+        if (value.indexOf('"') < 0 && value.indexOf('\'') < 0) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        char quote = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char character = chars[i];
+            if (quote == 0) {
+                if (character == '"' || character == '\'') {
+                    quote = character;
+                }
+            } else if (character == quote) {
+                quote = 0;
+            } else {
+                chars[i] = ' ';
+                if (character == '\\' && i + 1 < chars.length) {
+                    chars[++i] = ' ';
+                }
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the value with every occurrence of the target outside of its literals replaced
+     */
+    static String replace(String value, String target, String replacement) {
+        int index = value.indexOf(target);
+        if (index < 0) {
+            return value;
+        }
+        String code = maskLiterals(value);
+        StringBuilder replaced = new StringBuilder(value.length());
+        int end = 0;
+        for (index = code.indexOf(target); index >= 0; index = code.indexOf(target, index + target.length())) {
+            replaced.append(value, end, index).append(replacement);
+            end = index + target.length();
+        }
+        return end == 0 ? value : replaced.append(value, end, value.length()).toString();
+    }
+}
@@ -0,0 +1,274 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+/**
+ * Locals declared once at the top of init() and of every method init() is split into
+ *
+ * The context, its resources, display metrics and theme are read once instead of in every attribute. Value lookups like getDimension or getString
+ * that are used more than once share a local. Drawables are never shared because views mutate them.
+ *
+ * The value lookups of a generated layout are resolved into {@link ResolvedValues} instead, the locals read them from there. Colors depend on the
+ * theme and are looked up by every instance. Shared subtrees do not have a layout instance to keep them, they only share lookups that are used
+ * more than once.
+ */
+class InitLocals {
+
+    private static final String CONTEXT = "getContext()";
+
+    private static final String RESOURCES = "getContext().getResources()";
+
+    private static final String THEME = "getContext().getTheme()";
+
+    private static final String ATTR_DRAWABLE = "LayoutUtils.getAttrDrawable(getContext(), ";
+
+    /**
+     * value lookups that return immutable values and their types
+     */
+    private static final Map<String, String> VALUE_LOOKUPS = new LinkedHashMap<>();
+
+    static {
+        VALUE_LOOKUPS.put("getDimension", "float");
+        VALUE_LOOKUPS.put("getDimensionPixelSize", "int");
+        VALUE_LOOKUPS.put("getDimensionPixelOffset", "int");
+        VALUE_LOOKUPS.put("getInteger", "int");
+        VALUE_LOOKUPS.put("getBoolean", "boolean");
+        VALUE_LOOKUPS.put("getString", "String");
+        VALUE_LOOKUPS.put("getColor", "int");
+    }
+
+    /**
+     * value lookups that resolve through the theme of the context, e.g. a color state list with a theme attribute, they are never resolved into
+     * {@link ResolvedValues} because a new instance can have another theme with the same configuration
+     */
+    private static final Set<String> THEMED_LOOKUPS = Collections.singleton("getColor");
+
+    /**
+     * all locals in declaration order, a local is only declared after the locals it depends on
+     */
+    private final List<Local> locals = new ArrayList<>();
+
+    private final Set<String> names = new HashSet<>();
+
+    private ResolvedValues resolvedValues;
+
+    private InitLocals() {
+    }
+
+    /**
+     * rewrites the attributes that are set in init() to use the hoisted locals, the constructor arguments of the root layout are kept
+     *
+     * @param rootLayout converted root layout
+     * @param dimensions dp and sp tables of the layout
+     * @return locals of init()
+     */
+    static InitLocals hoist(LayoutEntity rootLayout, LayoutDimensions dimensions) {
+        return hoist(rootLayout, dimensions, CONTEXT, true);
+    }
+
+    /**
+     * @param contextSource expression the context local is read from
+     */
+    static InitLocals hoist(LayoutEntity rootLayout, LayoutDimensions dimensions, String contextSource) {
+        return hoist(rootLayout, dimensions, contextSource, false);
+    }
+
+    /**
+     * @param resolve true to resolve all value lookups into {@link ResolvedValues}
+     */
+    private static InitLocals hoist(LayoutEntity rootLayout, LayoutDimensions dimensions, String contextSource, boolean resolve) {
+        InitLocals locals = new InitLocals();
+        List<LayoutAttribute> attributes = new ArrayList<>();
+        for (LayoutAttribute attribute : rootLayout.getAttributes()) {
+            if (!attribute.isLayoutConstructor()) {
+                attributes.add(attribute);
+            }
+        }
+        locals.reserve(rootLayout);
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            attributes.addAll(child.getAttributes());
+            locals.reserve(child);
+        }
+        locals.names.add(LayoutDimensions.DP_PIXELS);
+        locals.names.add(LayoutDimensions.SP_PIXELS);
+
+        String context = locals.name("context");
+        String resources = locals.name("resources");
+        String metrics = locals.name("metrics");
+        String theme = locals.name("theme");
+        for (LayoutAttribute attribute : attributes) {
+            String value = attribute.getValue();
+            if (value == null || !value.contains(CONTEXT)) {
+                continue;
+            }
+            value = GeneratedCode.replace(value, ATTR_DRAWABLE, "LayoutUtils.getAttrDrawable(" + theme + ", ");
+            value = GeneratedCode.replace(value, RESOURCES, resources);
+            value = GeneratedCode.replace(value, THEME, theme);
+            value = GeneratedCode.replace(value, CONTEXT, context);
+            attribute.setValue(value);
+        }
+
+        locals.locals.add(new Local(context, "Context " + context + " = " + contextSource));
+        String resourcesDeclaration = "android.content.res.Resources " + resources + " = " + context + ".getResources()";
+        locals.locals.add(new Local(resources, resourcesDeclaration, context));
+        locals.locals.add(new Local(metrics, "android.util.DisplayMetrics " + metrics + " = " + resources + ".getDisplayMetrics()", resources));
+        locals.locals.add(new Local(theme, "android.content.res.Resources.Theme " + theme + " = " + context + ".getTheme()", context));
+        if (!dimensions.getDp().isEmpty()) {
+            locals.locals.add(new Local(LayoutDimensions.DP_PIXELS, "int[] " + LayoutDimensions.DP_PIXELS + " = DIMENSIONS.dp(" + metrics + ")", metrics));
+        }
+        if (!dimensions.getSp().isEmpty()) {
+            locals.locals.add(new Local(LayoutDimensions.SP_PIXELS, "float[] " + LayoutDimensions.SP_PIXELS + " = DIMENSIONS.sp(" + metrics + ")", metrics));
+        }
+        if (resolve) {
+            locals.resolvedValues = new ResolvedValues(context, resourcesDeclaration, resources);
+        }
+        locals.share(attributes, context, resources);
+        return locals;
+    }
+
+    /**
+     * @param attributes attributes that are set in a method
+     * @return declarations of the locals the attributes use, in declaration order
+     */
+    List<String> getDeclarations(List<LayoutAttribute> attributes) {
+        Set<String> used = new HashSet<>();
+        for (int i = locals.size() - 1; i >= 0; i--) {
+            Local local = locals.get(i);
+            if (used.contains(local.name) || local.isUsedBy(attributes)) {
+                used.add(local.name);
+                used.addAll(local.dependencies);
+            }
+        }
+        List<String> declarations = new ArrayList<>();
+        for (Local local : locals) {
+            if (used.contains(local.name)) {
+                declarations.add(local.declaration);
+            }
+        }
+        return declarations;
+    }
+
+    /**
+     * @return the resolved value lookups of a generated layout, null for a shared subtree
+     */
+    ResolvedValues getResolvedValues() {
+        return resolvedValues;
+    }
+
+    /**
+     * replaces value lookups that are used more than once by a local, or all of them when they are resolved, string literals are kept
+     */
+    private void share(List<LayoutAttribute> attributes, String context, String resources) {
+        Pattern lookup = Pattern.compile("\\b(" + Pattern.quote(context) + "|" + Pattern.quote(resources) + ")\\.(\\w+)\\(((?:android\\.)?R\\.(\\w+)\\.(\\w+))\\)");
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (LayoutAttribute attribute : attributes) {
+            String value = attribute.getValue();
+            if (value == null) {
+                continue;
+            }
+            Matcher matcher = lookup.matcher(GeneratedCode.maskLiterals(value));
+            while (matcher.find()) {
+                if (VALUE_LOOKUPS.containsKey(matcher.group(2))) {
+                    Integer count = counts.get(matcher.group());
+                    counts.put(matcher.group(), count == null ? 1 : count + 1);
+                }
+            }
+        }
+        Map<String, String> sharedNames = new LinkedHashMap<>();
+        String values = null;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            Matcher matcher = lookup.matcher(count.getKey());
+            if (!matcher.matches()) {
+                continue;
+            }
+            String method = matcher.group(2);
+            boolean resolved = resolvedValues != null && !THEMED_LOOKUPS.contains(method);
+            if (count.getValue() < 2 && !resolved) {
+                continue;
+            }
+            String name = name(matcher.group(5) + method.substring(3));
+            sharedNames.put(count.getKey(), name);
+            String type = VALUE_LOOKUPS.get(method);
+            String expression = matcher.group(1) + "." + method + "(" + matcher.group(3) + ")";
+            if (!resolved) {
+                locals.add(new Local(name, type + " " + name + " = " + expression, matcher.group(1)));
+                continue;
+            }
+            if (values == null) {
+                values = name("values");
+                locals.add(new Local(values, ResolvedValues.CLASS_NAME + " " + values + " = resolveValues(" + context + ")", context));
+            }
+            resolvedValues.add(type, name, expression);
+            locals.add(new Local(name, type + " " + name + " = " + values + "." + name, values));
+        }
+        if (sharedNames.isEmpty()) {
+            return;
+        }
+        for (LayoutAttribute attribute : attributes) {
+            String value = attribute.getValue();
+            if (value == null) {
+                continue;
+            }
+            for (Map.Entry<String, String> sharedName : sharedNames.entrySet()) {
+                value = GeneratedCode.replace(value, sharedName.getKey(), sharedName.getValue());
+            }
+            attribute.setValue(value);
+        }
+    }
+
+    private void reserve(LayoutEntity layout) {
+        names.add(layout.getId());
+        names.add(layout.getId() + "LayoutParams");
+    }
+
+    /**
+     * @param base name of the local
+     * @return a name that does not hide a view field or another local
+     */
+    private String name(String base) {
+        String name = base;
+        for (int i = 1; names.contains(name); i++) {
+            name = base + i;
+        }
+        names.add(name);
+        return name;
+    }
+
+    private static class Local {
+
+        final String name;
+
+        final String declaration;
+
+        final List<String> dependencies;
+
+        final Pattern usage;
+
+        Local(String name, String declaration, String... dependencies) {
+            this.name = name;
+            this.declaration = declaration;
+            this.dependencies = Arrays.asList(dependencies);
+            this.usage = Pattern.compile("\\b" + Pattern.quote(name) + "\\b");
+        }
+
+        boolean isUsedBy(List<LayoutAttribute> attributes) {
+            for (LayoutAttribute attribute : attributes) {
+                if (attribute.getValue() != null && attribute.getValue().contains(name) && usage.matcher(GeneratedCode.maskLiterals(attribute.getValue())).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
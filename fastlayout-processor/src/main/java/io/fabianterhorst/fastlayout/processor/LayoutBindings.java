@@ -0,0 +1,101 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bind methods of a generated layout when fastlayout.bindings is enabled
+ *
+ * Every view with an android:id gets a bind method for its visibility, text views for their text and image views for their image. A bind method
+ * skips the setter when the value is the one it set last, so binding the same item again does not request a layout pass. Only the values set
+ * through the bind methods are remembered. A text is remembered by its characters, so a mutable CharSequence is captured by the value it had
+ * when it was bound. A Spanned text is always set and not remembered, equal characters can have other spans, so the next text is set as well.
+ * The views of lazy subtrees are left out like in the {@link LayoutViewHolder}.
+ */
+public class LayoutBindings {
+
+    private static final String TEXT_VIEW = "android.widget.TextView";
+
+    private static final String IMAGE_VIEW = "android.widget.ImageView";
+
+    private final List<BoundView> views = new ArrayList<>();
+
+    private LayoutBindings() {
+    }
+
+    static LayoutBindings collect(LayoutEntity rootLayout, WidgetTypeResolver widgetTypes) {
+        LayoutBindings bindings = new LayoutBindings();
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            if (child.isHasId() && child.getLazy() == null) {
+                List<String> hierarchy = widgetTypes.getHierarchy(child.getName());
+                bindings.views.add(new BoundView(child, hierarchy.contains(TEXT_VIEW), hierarchy.contains(IMAGE_VIEW)));
+            }
+        }
+        return bindings;
+    }
+
+    public List<BoundView> getViews() {
+        return views;
+    }
+
+    /**
+     * @return true when a bind method remembers a value, they start with a marker that no value is equal to
+     */
+    public boolean isRemembering() {
+        for (BoundView view : views) {
+            if (view.isText() || view.isImage()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class BoundView {
+
+        private final LayoutEntity view;
+
+        private final boolean text;
+
+        private final boolean image;
+
+        BoundView(LayoutEntity view, boolean text, boolean image) {
+            this.view = view;
+            this.text = text;
+            this.image = image;
+        }
+
+        public String getId() {
+            return view.getId();
+        }
+
+        /**
+         * @return part of the method names, same capitalization as the getters
+         */
+        public String getMethodName() {
+            String id = view.getId();
+            return id.substring(0, 1).toUpperCase() + id.substring(1).toLowerCase();
+        }
+
+        public boolean isText() {
+            return text;
+        }
+
+        public boolean isImage() {
+            return image;
+        }
+
+        /**
+         * @return field with the characters of the last bound text, UNBOUND after a Spanned text
+         */
+        public String getTextField() {
+            return view.getId() + "BoundText";
+        }
+
+        /**
+         * @return field with the last bound drawable or drawable resource
+         */
+        public String getImageField() {
+            return view.getId() + "BoundImage";
+        }
+    }
+}
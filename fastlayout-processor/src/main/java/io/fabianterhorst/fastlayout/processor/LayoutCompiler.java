@@ -0,0 +1,279 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.fabianterhorst.fastlayout.converters.CardViewLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.DefaultAttributesConverter;
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+import io.fabianterhorst.fastlayout.converters.LayoutConverter;
+import io.fabianterhorst.fastlayout.converters.LayoutConverters;
+import io.fabianterhorst.fastlayout.converters.LinearLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.MarginConverter;
+import io.fabianterhorst.fastlayout.converters.PaddingConverter;
+import io.fabianterhorst.fastlayout.converters.RelativeLayoutConverter;
+import io.fabianterhorst.fastlayout.converters.SizeConverter;
+import io.fabianterhorst.fastlayout.converters.TextViewLayoutConverter;
+
+/**
+ * Parses, converts and renders a single layout
+ *
+ * A compiler holds all per layout state, so every layout gets its own instance and layouts can be compiled in parallel.
+ */
+class LayoutCompiler {
+
+    /**
+     * converters of every tag and root layout combination, the converters are reset after each view so they can be reused
+     */
+    private final Map<String, LayoutConverters> converterSets = new HashMap<>();
+
+    private final LayoutEmitter emitter;
+
+    /**
+     * classes of the converters annotated with @Converter, checked by the processor and instantiated for every converter set like the built-in ones
+     */
+    private final List<Class<? extends LayoutConverter>> userConverters;
+
+    private final WidgetTypeResolver widgetTypes;
+
+    private final ResourceValues resourceValues;
+
+    private final boolean optimize;
+
+    private final boolean lazySubtrees;
+
+    private final boolean viewHolders;
+
+    private final boolean bindings;
+
+    private final int maxStatements;
+
+    private final List<String> notes = new ArrayList<>();
+
+    private LayoutMetrics metrics;
+
+    LayoutCompiler(LayoutEmitter emitter, List<Class<? extends LayoutConverter>> userConverters, WidgetTypeResolver widgetTypes, ResourceValues resourceValues, boolean optimize, boolean lazySubtrees, boolean viewHolders, boolean bindings, int maxStatements) {
+        this.emitter = emitter;
+        this.userConverters = userConverters;
+        this.widgetTypes = widgetTypes;
+        this.resourceValues = resourceValues;
+        this.optimize = optimize;
+        this.lazySubtrees = lazySubtrees;
+        this.viewHolders = viewHolders;
+        this.bindings = bindings;
+        this.maxStatements = maxStatements;
+    }
+
+    LayoutEntity parse(File file, byte[] layout) throws LayoutParseException {
+        metrics = new LayoutMetrics(file.getParentFile() != null ? file.getParentFile().getName() + "/" + file.getName() : file.getName());
+        long start = System.nanoTime();
+        LayoutEntity rootLayout = new LayoutParser().parse(file, layout);
+        long parsed = System.nanoTime();
+        metrics.setParseNanos(parsed - start);
+        inlineResourceValues(rootLayout);
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            inlineResourceValues(child);
+        }
+        if (optimize) {
+            List<String> removed = new LayoutOptimizer().optimize(rootLayout);
+            if (!removed.isEmpty()) {
+                notes.add(file.getName() + ": " + removed.size() + " redundant view" + (removed.size() > 1 ? "s" : "") + " removed (" + StringUtils.join(removed, ", ") + ")");
+            }
+        }
+        markLazySubtrees(rootLayout, null, 0);
+        List<LayoutEntity> descendants = rootLayout.getDescendants();
+        int attributes = rootLayout.getXmlAttributes().size();
+        convertLayout(rootLayout);
+        for (LayoutEntity child : descendants) {
+            attributes += child.getXmlAttributes().size();
+            convertLayout(child);
+        }
+        metrics.setConvertNanos(System.nanoTime() - parsed);
+        metrics.setNodes(descendants.size() + 1);
+        metrics.setAttributes(attributes);
+        return rootLayout;
+    }
+
+    /**
+     * gives every view of a lazy subtree its subtree, a lazy subtree inside a lazy subtree is created with the outer one
+     *
+     * @return count of lazy subtrees so far, the index of the next one
+     */
+    private int markLazySubtrees(LayoutEntity layout, LazySubtree enclosing, int count) {
+        for (LayoutEntity child : layout.getChildren()) {
+            LazySubtree lazy = enclosing;
+            if (lazy == null) {
+                if (child.getLazy() != null) {
+                    lazy = child.getLazy();
+                } else if (lazySubtrees && !child.getChildren().isEmpty() && "gone".equals(child.getXmlAttribute("android:visibility"))) {
+                    String id = child.getXmlAttribute("android:id");
+                    lazy = new LazySubtree(child, id != null ? LayoutParser.toIdReference(id) : null);
+                }
+                if (lazy != null) {
+                    lazy.setIndex(count++);
+                }
+            }
+            child.setLazy(lazy);
+            count = markLazySubtrees(child, lazy, count);
+        }
+        return count;
+    }
+
+    private void inlineResourceValues(LayoutEntity layout) {
+        for (Map.Entry<String, String> attribute : layout.getXmlAttributes().entrySet()) {
+            attribute.setValue(resourceValues.inline(attribute.getKey(), attribute.getValue()));
+        }
+    }
+
+    String render(LayoutEntity rootLayout, String packageName, String keyWrapperClassName) throws IOException {
+        long start = System.nanoTime();
+        LayoutDimensions dimensions = LayoutDimensions.collect(rootLayout);
+        InitLocals locals = InitLocals.hoist(rootLayout, dimensions);
+        List<LayoutMethod> methods = LayoutMethod.split(rootLayout, locals, maxStatements);
+        List<LayoutMethod> lazyMethods = new ArrayList<>();
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            if (child.isLazyRoot()) {
+                lazyMethods.addAll(LayoutMethod.splitLazy(child.getLazy(), locals, maxStatements));
+            }
+        }
+        StringWriter writer = new StringWriter();
+        emitter.emitLayout(writer, packageName, keyWrapperClassName, rootLayout, dimensions, methods.get(0), methods.subList(1, methods.size()), lazyMethods, locals.getResolvedValues(), viewHolders ? LayoutViewHolder.collect(rootLayout) : null,
+                bindings ? LayoutBindings.collect(rootLayout, widgetTypes) : null);
+        metrics.setClassName(packageName + "." + keyWrapperClassName);
+        metrics.setRenderNanos(System.nanoTime() - start);
+        return writer.toString();
+    }
+
+    /**
+     * @return timings and counts of the last parsed layout
+     */
+    LayoutMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return messages collected while compiling, they are printed by the processor thread
+     */
+    List<String> getNotes() {
+        return notes;
+    }
+
+    private void convertLayout(LayoutEntity layout) {
+        LayoutConverters converters = getConverters(layout.getName(), layout.getRootLayout());
+        for (Map.Entry<String, String> attribute : layout.getXmlAttributes().entrySet()) {
+            LayoutAttribute layoutAttr = converters.convert(attribute.getValue(), attribute.getKey(), layout.getAttributes());
+            LayoutConverter converter = converters.getLastConverter();
+            if (converter != null) {
+                metrics.addConverterHit(attribute.getKey(), converter.getClass().getSimpleName(), converter.getClass() == LayoutConverter.class);
+            }
+            if (layoutAttr.getType() != LayoutAttribute.Type.ASSIGNED) {
+                layout.addAttribute(layoutAttr);
+            }
+        }
+        List<LayoutAttribute> finishedAttributes = converters.finish(layout.getAttributes());
+        if (finishedAttributes.size() > 0) {
+            layout.addAllAttributes(finishedAttributes);
+        }
+
+        List<LayoutAttribute> layoutAttributes = layout.getAttributes();
+
+        Collections.sort(layoutAttributes, new Comparator<LayoutAttribute>() {
+            @Override
+            public int compare(LayoutAttribute o1, LayoutAttribute o2) {
+                return Integer.compare(o1.getType().getIndex(), o2.getType().getIndex());
+            }
+        });
+
+        for (int i = (layoutAttributes.size() - 1); i >= 0; i--) {
+            LayoutAttribute attribute = layoutAttributes.get(i);
+            if (attribute.isLayoutConstructor()) {
+                attribute.setLast(true);
+                break;
+            }
+        }
+
+        for (int i = (layoutAttributes.size() - 1); i >= 0; i--) {
+            LayoutAttribute attribute = layoutAttributes.get(i);
+            if (attribute.isParamsConstructor()) {
+                attribute.setLast(true);
+                break;
+            }
+        }
+    }
+
+    private LayoutConverters getConverters(String name, String root) {
+        String key = name + "\n" + root;
+        LayoutConverters converters = converterSets.get(key);
+        if (converters != null) {
+            return converters;
+        }
+
+        ArrayList<LayoutConverter> layoutConverters = new ArrayList<>();
+        for (Class<? extends LayoutConverter> converterClass : userConverters) {
+            layoutConverters.add(newConverter(converterClass));
+        }
+
+        layoutConverters.addAll(getLayoutConvertersForClasses(widgetTypes.getHierarchy(name)));
+        layoutConverters.addAll(getLayoutConvertersForRootClasses(widgetTypes.getHierarchy(root)));
+        /*last*/
+        layoutConverters.add(new LayoutConverter());
+        converters = new LayoutConverters();
+        converters.setAll(layoutConverters);
+        converterSets.put(key, converters);
+        return converters;
+    }
+
+    private static LayoutConverter newConverter(Class<? extends LayoutConverter> converterClass) {
+        try {
+            return converterClass.getDeclaredConstructor().newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("converter " + converterClass.getName() + " can not be created", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("converter " + converterClass.getName() + " can not be created", e.getCause());
+        }
+    }
+
+    private List<LayoutConverter> getLayoutConvertersForRootClasses(List<String> convertibleClasses) {
+        List<LayoutConverter> converters = new ArrayList<>();
+        for (String layoutClass : convertibleClasses) {
+            switch (layoutClass) {
+                case "android.widget.RelativeLayout":
+                    converters.add(new RelativeLayoutConverter());
+                    break;
+            }
+        }
+        return converters;
+    }
+
+    private List<LayoutConverter> getLayoutConvertersForClasses(List<String> convertibleClasses) {
+        List<LayoutConverter> converters = new ArrayList<>();
+        for (String layoutClass : convertibleClasses) {
+            switch (layoutClass) {
+                case "android.view.View":
+                    converters.add(new DefaultAttributesConverter());
+                    converters.add(new MarginConverter());
+                    converters.add(new PaddingConverter());
+                    converters.add(new SizeConverter());
+                    converters.add(new CardViewLayoutConverter());
+                    break;
+                case "android.widget.TextView":
+                    converters.add(new TextViewLayoutConverter());
+                    break;
+                case "android.widget.LinearLayout":
+                    converters.add(new LinearLayoutConverter());
+                    break;
+            }
+        }
+        return converters;
+    }
+}
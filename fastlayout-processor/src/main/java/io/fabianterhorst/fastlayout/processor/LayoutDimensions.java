@@ -0,0 +1,107 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+/**
+ * Distinct dp and sp values of a layout, the converted attributes read them from a DimensionTable instead of converting each value on every construction
+ */
+public class LayoutDimensions {
+
+    static final String DP_PIXELS = "dpPixels";
+
+    static final String SP_PIXELS = "spPixels";
+
+    private static final Pattern DP = Pattern.compile("LayoutUtils\\.convertDpToPixel\\(([-+0-9.eE]+)f, getContext\\(\\)\\)");
+
+    private static final Pattern SP = Pattern.compile("LayoutUtils\\.convertSpToPixel\\(([-+0-9.eE]+)f, getContext\\(\\)\\)");
+
+    private final Map<Float, Integer> dp = new LinkedHashMap<>();
+
+    private final Map<Float, Integer> sp = new LinkedHashMap<>();
+
+    /**
+     * replaces the dp and sp conversions of all attributes that are set in init(), the constructor arguments of the root layout are kept
+     *
+     * @param rootLayout converted root layout
+     * @return dimensions of the layout
+     */
+    static LayoutDimensions collect(LayoutEntity rootLayout) {
+        LayoutDimensions dimensions = new LayoutDimensions();
+        dimensions.add(rootLayout);
+        return dimensions;
+    }
+
+    /**
+     * adds the dimensions of another layout to the same table
+     *
+     * @param rootLayout converted root layout
+     */
+    void add(LayoutEntity rootLayout) {
+        for (LayoutAttribute attribute : rootLayout.getAttributes()) {
+            if (!attribute.isLayoutConstructor()) {
+                replace(attribute);
+            }
+        }
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            for (LayoutAttribute attribute : child.getAttributes()) {
+                replace(attribute);
+            }
+        }
+    }
+
+    private void replace(LayoutAttribute attribute) {
+        String value = attribute.getValue();
+        if (value == null || !value.contains("LayoutUtils.convert")) {
+            return;
+        }
+        value = replace(value, DP, dp, DP_PIXELS);
+        value = replace(value, SP, sp, SP_PIXELS);
+        attribute.setValue(value);
+    }
+
+    /**
+     * only the conversions in the code are replaced, a string literal keeps its text
+     */
+    private static String replace(String value, Pattern pattern, Map<Float, Integer> indices, String table) {
+        Matcher matcher = pattern.matcher(GeneratedCode.maskLiterals(value));
+        if (!matcher.find()) {
+            return value;
+        }
+        StringBuilder replaced = new StringBuilder();
+        int end = 0;
+        do {
+            Float dimension = Float.valueOf(matcher.group(1));
+            Integer index = indices.get(dimension);
+            if (index == null) {
+                index = indices.size();
+                indices.put(dimension, index);
+            }
+            replaced.append(value, end, matcher.start()).append(table).append('[').append(index).append(']');
+            end = matcher.end();
+        } while (matcher.find());
+        return replaced.append(value, end, value.length()).toString();
+    }
+
+    public List<String> getDp() {
+        return toLiterals(dp);
+    }
+
+    public List<String> getSp() {
+        return toLiterals(sp);
+    }
+
+    private static List<String> toLiterals(Map<Float, Integer> indices) {
+        List<String> literals = new ArrayList<>(indices.size());
+        for (Float dimension : indices.keySet()) {
+            literals.add(dimension + "f");
+        }
+        return literals;
+    }
+}
@@ -0,0 +1,45 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the source of a generated layout class, of the LayoutCache and of the class with the shared subtrees
+ *
+ * An emitter is shared by all layouts of a round and can be called from any thread.
+ */
+interface LayoutEmitter {
+
+    /**
+     * @param writer              destination of the source
+     * @param packageName         package of the generated class
+     * @param keyWrapperClassName simple name of the generated class
+     * @param rootLayout          converted root layout
+     * @param dimensions          dp and sp tables of the layout
+     * @param init                init() with the root layout
+     * @param methods             the methods init() calls
+     * @param lazyMethods         inflate methods of the lazy subtrees, each followed by the methods it calls
+     * @param values              value lookups the layout resolves once per configuration
+     * @param viewHolder          nested RecyclerView.ViewHolder or null when fastlayout.viewHolders is disabled
+     * @param bindings            bind methods or null when fastlayout.bindings is disabled
+     */
+    void emitLayout(Writer writer, String packageName, String keyWrapperClassName, LayoutEntity rootLayout, LayoutDimensions dimensions, LayoutMethod init, List<LayoutMethod> methods, List<LayoutMethod> lazyMethods, ResolvedValues values, LayoutViewHolder viewHolder, LayoutBindings bindings) throws IOException;
+
+    /**
+     * @param writer      destination of the source
+     * @param packageName package of the LayoutCache
+     * @param layouts     constant name to generated layout class
+     * @param variants    constant of a layout with variants to the constants of its variants, the best variant first
+     */
+    void emitLayoutCache(Writer writer, String packageName, Map<String, LayoutObject> layouts, Map<String, List<String>> variants) throws IOException;
+
+    /**
+     * @param writer      destination of the source
+     * @param packageName package of the generated layouts
+     * @param dimensions  dp and sp tables of all shared subtrees
+     * @param subtrees    subtrees that are used by more than one layout
+     */
+    void emitSharedLayouts(Writer writer, String packageName, LayoutDimensions dimensions, List<SharedSubtree> subtrees) throws IOException;
+}
@@ -2,6 +2,8 @@ package io.fabianterhorst.fastlayout.processor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
 
@@ -19,13 +21,29 @@ public class LayoutEntity {
 
     private List<LayoutAttribute> attributes;
 
+    /**
+     * attributes as written in the xml, sorted by name
+     */
+    private Map<String, String> xmlAttributes;
+
     private String rootLayout;
 
     private String parent;
 
+    /**
+     * subtree of another layout with the same views, this view and its children are created by the shared method
+     */
+    private SharedSubtree shared;
+
+    /**
+     * subtree that is created on first use, set on all of its views
+     */
+    private LazySubtree lazy;
+
     public LayoutEntity() {
         children = new ArrayList<>();
         attributes = new ArrayList<>();
+        xmlAttributes = new TreeMap<>();
         hasChildren = false;
         parent = "this";
     }
@@ -58,6 +76,10 @@ public class LayoutEntity {
         this.attributes.addAll(attributes);
     }
 
+    public void setXmlAttribute(String name, String value) {
+        xmlAttributes.put(name, value);
+    }
+
     public void setLayoutParamsName(String layoutParamsName) {
         this.layoutParamsName = layoutParamsName;
     }
@@ -70,6 +92,14 @@ public class LayoutEntity {
         children.addAll(child);
     }
 
+    public void setShared(SharedSubtree shared) {
+        this.shared = shared;
+    }
+
+    public void setLazy(LazySubtree lazy) {
+        this.lazy = lazy;
+    }
+
     public String getId() {
         return id;
     }
@@ -94,6 +124,28 @@ public class LayoutEntity {
         return parent;
     }
 
+    public SharedSubtree getShared() {
+        return shared;
+    }
+
+    public LazySubtree getLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return true when a placeholder takes the place of this view until its subtree is created
+     */
+    public boolean isLazyRoot() {
+        return lazy != null && lazy.getRoot() == this;
+    }
+
+    /**
+     * @return true when the xml has an android:id, the ids of the other views are generated
+     */
+    public boolean isHasId() {
+        return xmlAttributes.containsKey("android:id");
+    }
+
     public boolean isHasChildren() {
         return hasChildren;
     }
@@ -101,4 +153,28 @@ public class LayoutEntity {
     public List<LayoutAttribute> getAttributes() {
         return attributes;
     }
+
+    public Map<String, String> getXmlAttributes() {
+        return xmlAttributes;
+    }
+
+    public String getXmlAttribute(String name) {
+        return xmlAttributes.get(name);
+    }
+
+    /**
+     * @return all children of this layout and their children in document order
+     */
+    public List<LayoutEntity> getDescendants() {
+        List<LayoutEntity> descendants = new ArrayList<>();
+        addDescendants(descendants);
+        return descendants;
+    }
+
+    private void addDescendants(List<LayoutEntity> descendants) {
+        for (LayoutEntity child : children) {
+            descendants.add(child);
+            child.addDescendants(descendants);
+        }
+    }
 }
@@ -0,0 +1,231 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+/**
+ * A generated method that creates a part of the view tree and adds it to the parents
+ *
+ * Views are created in document order, so every parent exists before its children. Large layouts are split into consecutive methods that stay
+ * below a statement budget, a subtree that fits into the budget is never split, so it is built and attached in one method. Methods that are too
+ * large are not compiled by the JIT and can hit the 64KB bytecode limit. A shared subtree is created by a single call, so it is never split and
+ * only its root is part of the method.
+ *
+ * The root of a lazy subtree is a placeholder in the method of its parent, the subtree is created by its own inflate method that can be split
+ * the same way. The placeholder gets the layout params of the root, so views that are positioned relative to it do not move, and passes them
+ * to the root when it replaces itself.
+ */
+public class LayoutMethod {
+
+    /**
+     * statements of a method before the views are split into further methods
+     */
+    static final int DEFAULT_MAX_STATEMENTS = 150;
+
+    private final String name;
+
+    private final List<LayoutEntity> layouts = new ArrayList<>();
+
+    private LazySubtree lazy;
+
+    private List<LayoutMethod> calls = Collections.emptyList();
+
+    private List<String> declarations;
+
+    private int statements;
+
+    private LayoutMethod(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param rootLayout    converted root layout
+     * @param locals        locals of the layout
+     * @param maxStatements statement budget of a method
+     * @return init() with the root layout followed by the methods init() calls, init() creates all views itself when they fit into the budget
+     */
+    static List<LayoutMethod> split(LayoutEntity rootLayout, InitLocals locals, int maxStatements) {
+        List<LayoutAttribute> rootAttributes = new ArrayList<>();
+        for (LayoutAttribute attribute : rootLayout.getAttributes()) {
+            if (!attribute.isLayoutConstructor()) {
+                rootAttributes.add(attribute);
+            }
+        }
+        return split("init", "initViews", rootLayout, rootAttributes, locals, maxStatements);
+    }
+
+    /**
+     * @return the inflate method of the subtree followed by the methods it calls, the inflate method creates the subtree root itself
+     */
+    static List<LayoutMethod> splitLazy(LazySubtree lazy, InitLocals locals, int maxStatements) {
+        LayoutEntity root = lazy.getRoot();
+        List<LayoutAttribute> rootAttributes = new ArrayList<>();
+        for (LayoutAttribute attribute : root.getAttributes()) {
+            if (!isParams(attribute)) {
+                rootAttributes.add(attribute);
+            }
+        }
+        List<LayoutMethod> methods = split(lazy.getMethodName(), lazy.getMethodName() + "Views", root, rootAttributes, locals, maxStatements);
+        methods.get(0).lazy = lazy;
+        return methods;
+    }
+
+    /**
+     * @param rootAttributes attributes of the root the first method sets
+     */
+    private static List<LayoutMethod> split(String name, String prefix, LayoutEntity root, List<LayoutAttribute> rootAttributes, InitLocals locals, int maxStatements) {
+        List<LayoutMethod> methods = new ArrayList<>();
+        LayoutMethod first = new LayoutMethod(name);
+        first.statements = getCreateStatements(root);
+        methods.add(first);
+        Map<LayoutEntity, Integer> subtreeStatements = new HashMap<>();
+        int total = first.statements;
+        for (LayoutEntity child : root.getChildren()) {
+            total += countSubtree(child, subtreeStatements);
+        }
+        if (total <= maxStatements) {
+            for (LayoutEntity child : root.getChildren()) {
+                addCreated(first.layouts, child);
+            }
+        } else {
+            for (LayoutEntity child : root.getChildren()) {
+                add(methods, prefix, child, subtreeStatements, maxStatements);
+            }
+        }
+        for (LayoutMethod method : methods) {
+            List<LayoutAttribute> attributes = method == first ? rootAttributes : new ArrayList<LayoutAttribute>();
+            for (LayoutEntity layout : method.layouts) {
+                //a placeholder only gets the layout params, the other attributes are set by the inflate method of its subtree
+                for (LayoutAttribute attribute : layout.getAttributes()) {
+                    if (!layout.isLazyRoot() || isParams(attribute)) {
+                        attributes.add(attribute);
+                    }
+                }
+            }
+            method.declarations = locals.getDeclarations(attributes);
+        }
+        first.calls = methods.subList(1, methods.size());
+        return methods;
+    }
+
+    private static void add(List<LayoutMethod> methods, String prefix, LayoutEntity layout, Map<LayoutEntity, Integer> subtreeStatements, int maxStatements) {
+        int statements = subtreeStatements.get(layout);
+        LayoutMethod current = methods.size() > 1 ? methods.get(methods.size() - 1) : null;
+        if (statements <= maxStatements || layout.getShared() != null || layout.isLazyRoot()) {
+            if (current == null || current.statements + statements > maxStatements) {
+                current = newMethod(methods, prefix);
+            }
+            addCreated(current.layouts, layout);
+            current.statements += statements;
+            return;
+        }
+        int layoutStatements = getStatements(layout);
+        if (current == null || current.statements + layoutStatements > maxStatements) {
+            current = newMethod(methods, prefix);
+        }
+        current.layouts.add(layout);
+        current.statements += layoutStatements;
+        for (LayoutEntity child : layout.getChildren()) {
+            add(methods, prefix, child, subtreeStatements, maxStatements);
+        }
+    }
+
+    /**
+     * adds the view and the views it creates in document order, the views of a shared subtree are created by its root, the views of a lazy
+     * subtree by its inflate method
+     */
+    private static void addCreated(List<LayoutEntity> layouts, LayoutEntity layout) {
+        layouts.add(layout);
+        if (layout.getShared() == null && !layout.isLazyRoot()) {
+            for (LayoutEntity child : layout.getChildren()) {
+                addCreated(layouts, child);
+            }
+        }
+    }
+
+    private static LayoutMethod newMethod(List<LayoutMethod> methods, String prefix) {
+        LayoutMethod method = new LayoutMethod(prefix + methods.size());
+        methods.add(method);
+        return method;
+    }
+
+    private static int countSubtree(LayoutEntity layout, Map<LayoutEntity, Integer> subtreeStatements) {
+        int statements = getStatements(layout);
+        if (layout.getShared() == null && !layout.isLazyRoot()) {
+            for (LayoutEntity child : layout.getChildren()) {
+                statements += countSubtree(child, subtreeStatements);
+            }
+        }
+        subtreeStatements.put(layout, statements);
+        return statements;
+    }
+
+    /**
+     * @return statements of the view in the method of its parent, a placeholder is created, gets its id and layout params and is added to the
+     * parent
+     */
+    private static int getStatements(LayoutEntity layout) {
+        if (layout.isLazyRoot()) {
+            int statements = layout.getLazy().getStubId() != null ? 4 : 3;
+            for (LayoutAttribute attribute : layout.getAttributes()) {
+                if (attribute.getType() == LayoutAttribute.Type.PARAM) {
+                    statements++;
+                }
+            }
+            return statements;
+        }
+        return getCreateStatements(layout);
+    }
+
+    /**
+     * @return true when the attribute is part of the layout params of the view
+     */
+    private static boolean isParams(LayoutAttribute attribute) {
+        return attribute.isParamsConstructor() || attribute.getType() == LayoutAttribute.Type.PARAM;
+    }
+
+    /**
+     * @return statements that create the view, its layout params, set the attributes and add it to the parent, a shared subtree also assigns
+     * the views the shared method returns
+     */
+    private static int getCreateStatements(LayoutEntity layout) {
+        int statements = layout.getShared() != null ? 4 + layout.getDescendants().size() : 3;
+        for (LayoutAttribute attribute : layout.getAttributes()) {
+            if (attribute.getType() == LayoutAttribute.Type.PARAM || attribute.getType() == LayoutAttribute.Type.LAYOUT) {
+                statements++;
+            }
+        }
+        return statements;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<LayoutEntity> getLayouts() {
+        return layouts;
+    }
+
+    public List<String> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * @return the lazy subtree the method inflates or null
+     */
+    public LazySubtree getLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return methods that create the rest of the views after this one
+     */
+    public List<LayoutMethod> getCalls() {
+        return calls;
+    }
+}
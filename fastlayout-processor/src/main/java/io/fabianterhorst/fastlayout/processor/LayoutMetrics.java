@@ -0,0 +1,115 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Timings and counts of a single compiled layout, collected by the compiler and written to the metrics report
+ */
+class LayoutMetrics {
+
+    private final String fileName;
+
+    private String className;
+
+    private long parseNanos;
+
+    private long convertNanos;
+
+    private long renderNanos;
+
+    private int nodes;
+
+    private int attributes;
+
+    /**
+     * attribute name to the converters that handled it and how often
+     */
+    private final Map<String, Map<String, Integer>> converterHits = new TreeMap<>();
+
+    /**
+     * attributes that no specific converter handled, they are set through the generic setter of the LayoutConverter
+     */
+    private final Map<String, Integer> fallthrough = new TreeMap<>();
+
+    LayoutMetrics(String fileName) {
+        this.fileName = fileName;
+    }
+
+    void setClassName(String className) {
+        this.className = className;
+    }
+
+    void setParseNanos(long parseNanos) {
+        this.parseNanos = parseNanos;
+    }
+
+    void setConvertNanos(long convertNanos) {
+        this.convertNanos = convertNanos;
+    }
+
+    void setRenderNanos(long renderNanos) {
+        this.renderNanos = renderNanos;
+    }
+
+    void setNodes(int nodes) {
+        this.nodes = nodes;
+    }
+
+    void setAttributes(int attributes) {
+        this.attributes = attributes;
+    }
+
+    void addConverterHit(String attributeName, String converterName, boolean generic) {
+        Map<String, Integer> hits = converterHits.get(attributeName);
+        if (hits == null) {
+            hits = new TreeMap<>();
+            converterHits.put(attributeName, hits);
+        }
+        increment(hits, converterName, 1);
+        if (generic) {
+            increment(fallthrough, attributeName, 1);
+        }
+    }
+
+    static void increment(Map<String, Integer> counts, String key, int count) {
+        Integer current = counts.get(key);
+        counts.put(key, current == null ? count : current + count);
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    long getParseNanos() {
+        return parseNanos;
+    }
+
+    long getConvertNanos() {
+        return convertNanos;
+    }
+
+    long getRenderNanos() {
+        return renderNanos;
+    }
+
+    int getNodes() {
+        return nodes;
+    }
+
+    int getAttributes() {
+        return attributes;
+    }
+
+    Map<String, Map<String, Integer>> getConverterHits() {
+        return converterHits;
+    }
+
+    Map<String, Integer> getFallthrough() {
+        return fallthrough;
+    }
+}
@@ -4,6 +4,12 @@ public class LayoutObject {
 
     private String name;
 
+    private String defaultName;
+
+    private LayoutQualifiers qualifiers;
+
+    private String layoutName;
+
     public LayoutObject(String name) {
         this.name = name;
     }
@@ -15,4 +21,45 @@ public class LayoutObject {
     public String getName() {
         return name;
     }
+
+    /**
+     * @param layoutName resource name of the layout file
+     */
+    void setLayoutName(String layoutName) {
+        this.layoutName = layoutName;
+    }
+
+    /**
+     * @return R.layout id the generated LayoutCache finds this layout by, 0 for a variant because the id belongs to the default layout
+     */
+    public String getLayoutId() {
+        return qualifiers == null ? "R.layout." + layoutName : "0";
+    }
+
+    /**
+     * @param defaultName class of the same layout in the folder without qualifiers
+     * @param qualifiers  qualifiers of the folder of this layout
+     */
+    void setVariant(String defaultName, LayoutQualifiers qualifiers) {
+        this.defaultName = defaultName;
+        this.qualifiers = qualifiers;
+    }
+
+    /**
+     * @return class of the layout this is a variant of or null
+     */
+    String getDefaultName() {
+        return defaultName;
+    }
+
+    LayoutQualifiers getQualifiers() {
+        return qualifiers;
+    }
+
+    /**
+     * @return condition of the generated LayoutCache that selects this variant
+     */
+    public String getCondition() {
+        return qualifiers != null ? qualifiers.getCondition() : null;
+    }
 }
@@ -0,0 +1,224 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes view groups that do not change the result of the layout
+ *
+ * A FrameLayout or LinearLayout without id, background or any other attribute than its size, margins and padding that wraps a single child is
+ * replaced by its child. The margins and padding of the wrapper are added to the margins of the child and the layout params of the wrapper are
+ * moved to the child. This is only done when the sizes prove that the child ends up at the same position with the same size: for every
+ * dimension the wrapper wraps a child that does not match its parent or both match their parents. A wrapper with a weight or a filling gravity
+ * can be bigger than its child, a child with layout attributes of another namespace depends on the wrapper, both are kept.
+ */
+class LayoutOptimizer {
+
+    private static final Set<String> WRAPPERS = new HashSet<>(Arrays.asList("FrameLayout", "android.widget.FrameLayout", "LinearLayout", "android.widget.LinearLayout"));
+
+    private static final String WIDTH = "android:layout_width";
+
+    private static final String HEIGHT = "android:layout_height";
+
+    private static final String MARGIN = "android:layout_margin";
+
+    private static final String PADDING = "android:padding";
+
+    private static final String WEIGHT = "android:layout_weight";
+
+    private static final String GRAVITY = "android:layout_gravity";
+
+    private static final String LAYOUT_PARAMS_PREFIX = "android:layout_";
+
+    private static final String[] SIDES = {"Left", "Top", "Right", "Bottom"};
+
+    /**
+     * attributes of the child that only position it inside the wrapper, they have no effect when the wrapper fits the child
+     */
+    private static final Set<String> WRAPPER_PARAMS = Collections.singleton(GRAVITY);
+
+    private final List<String> removed = new ArrayList<>();
+
+    /**
+     * @param rootLayout root of the parsed layout, the root itself is never removed
+     * @return description of every removed view
+     */
+    List<String> optimize(LayoutEntity rootLayout) {
+        optimizeChildren(rootLayout);
+        return removed;
+    }
+
+    private void optimizeChildren(LayoutEntity layout) {
+        List<LayoutEntity> children = layout.getChildren();
+        for (int i = 0; i < children.size(); i++) {
+            LayoutEntity child = children.get(i);
+            while (isRedundant(child)) {
+                LayoutEntity grandChild = child.getChildren().get(0);
+                merge(child, grandChild);
+                children.set(i, grandChild);
+                removed.add(child.getName() + " around " + grandChild.getId());
+                child = grandChild;
+            }
+            optimizeChildren(child);
+        }
+    }
+
+    private boolean isRedundant(LayoutEntity wrapper) {
+        if (!WRAPPERS.contains(wrapper.getName()) || wrapper.getChildren().size() != 1 || wrapper.getXmlAttribute("android:id") != null || wrapper.getLazy() != null) {
+            return false;
+        }
+        boolean linearLayout = wrapper.getName().endsWith("LinearLayout");
+        for (String attributeName : wrapper.getXmlAttributes().keySet()) {
+            if (attributeName.startsWith(PADDING)) {
+                if (!isSide(attributeName, PADDING)) {
+                    return false;
+                }
+            } else if (attributeName.startsWith(MARGIN)) {
+                if (!isSide(attributeName, MARGIN)) {
+                    return false;
+                }
+            } else if (!attributeName.startsWith(LAYOUT_PARAMS_PREFIX) && !(linearLayout && attributeName.equals("android:orientation"))) {
+                return false;
+            }
+        }
+        if (!isZero(wrapper.getXmlAttribute(WEIGHT)) || isFilling(wrapper.getXmlAttribute(GRAVITY))) {
+            return false;
+        }
+        LayoutEntity child = wrapper.getChildren().get(0);
+        for (String attributeName : child.getXmlAttributes().keySet()) {
+            if (attributeName.startsWith(MARGIN)) {
+                if (!isSide(attributeName, MARGIN)) {
+                    return false;
+                }
+            } else if (attributeName.startsWith(LAYOUT_PARAMS_PREFIX) && !attributeName.equals(WIDTH) && !attributeName.equals(HEIGHT) && !WRAPPER_PARAMS.contains(attributeName)) {
+                return false;
+            } else if (!attributeName.startsWith(LAYOUT_PARAMS_PREFIX) && attributeName.contains(":layout_")) {
+                //read by the wrapper, e.g. app:layout_behavior, the parent of the wrapper would read it differently
+                return false;
+            }
+        }
+        if (!fits(wrapper.getXmlAttribute(WIDTH), child.getXmlAttribute(WIDTH)) || !fits(wrapper.getXmlAttribute(HEIGHT), child.getXmlAttribute(HEIGHT))) {
+            return false;
+        }
+        return getSides(wrapper, MARGIN) != null && getSides(wrapper, PADDING) != null && getSides(child, MARGIN) != null;
+    }
+
+    /**
+     * @return true when the wrapper has exactly the size of its child plus its padding in this dimension
+     */
+    private static boolean fits(String wrapperSize, String childSize) {
+        if (wrapperSize == null || childSize == null) {
+            return false;
+        }
+        if (isMatchParent(wrapperSize)) {
+            return isMatchParent(childSize);
+        }
+        return wrapperSize.equals("wrap_content") && !isMatchParent(childSize);
+    }
+
+    private static boolean isZero(String weight) {
+        if (weight == null) {
+            return true;
+        }
+        try {
+            return Float.parseFloat(weight) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true when the gravity stretches the wrapper in its parent
+     */
+    private static boolean isFilling(String gravity) {
+        return gravity != null && gravity.contains("fill");
+    }
+
+    private static boolean isMatchParent(String size) {
+        return size.equals("match_parent") || size.equals("fill_parent");
+    }
+
+    private static boolean isSide(String attributeName, String prefix) {
+        if (attributeName.equals(prefix)) {
+            return true;
+        }
+        for (String side : SIDES) {
+            if (attributeName.equals(prefix + side)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return left, top, right and bottom in dp or null when a value is not a dp literal
+     */
+    private static float[] getSides(LayoutEntity layout, String prefix) {
+        float[] sides = new float[SIDES.length];
+        String all = layout.getXmlAttribute(prefix);
+        for (int i = 0; i < SIDES.length; i++) {
+            String value = all != null ? all : layout.getXmlAttribute(prefix + SIDES[i]);
+            if (value != null) {
+                Float dp = toDp(value);
+                if (dp == null) {
+                    return null;
+                }
+                sides[i] = dp;
+            }
+        }
+        return sides;
+    }
+
+    private static Float toDp(String value) {
+        String number;
+        if (value.endsWith("dip")) {
+            number = value.substring(0, value.length() - 3);
+        } else if (value.endsWith("dp")) {
+            number = value.substring(0, value.length() - 2);
+        } else {
+            number = value;
+            if (!number.equals("0")) {
+                return null;
+            }
+        }
+        if (!number.matches("-?[0-9]*\\.?[0-9]+")) {
+            return null;
+        }
+        return Float.valueOf(number);
+    }
+
+    private static void merge(LayoutEntity wrapper, LayoutEntity child) {
+        float[] margin = getSides(wrapper, MARGIN);
+        float[] padding = getSides(wrapper, PADDING);
+        float[] childMargin = getSides(child, MARGIN);
+        Map<String, String> attributes = child.getXmlAttributes();
+        attributes.keySet().removeAll(WRAPPER_PARAMS);
+        attributes.remove(MARGIN);
+        for (int i = 0; i < SIDES.length; i++) {
+            float sum = margin[i] + padding[i] + childMargin[i];
+            if (sum != 0) {
+                attributes.put(MARGIN + SIDES[i], toDimension(sum));
+            } else {
+                attributes.remove(MARGIN + SIDES[i]);
+            }
+        }
+        for (Map.Entry<String, String> attribute : wrapper.getXmlAttributes().entrySet()) {
+            String attributeName = attribute.getKey();
+            if (attributeName.startsWith(LAYOUT_PARAMS_PREFIX) && !attributeName.startsWith(MARGIN) && !attributeName.equals(WIDTH) && !attributeName.equals(HEIGHT)) {
+                attributes.put(attributeName, attribute.getValue());
+            }
+        }
+        child.setRootLayout(wrapper.getRootLayout());
+        child.setLayoutParamsName(wrapper.getLayoutParamsName());
+        child.setParent(wrapper.getParent());
+    }
+
+    private static String toDimension(float dp) {
+        return (dp == (int) dp ? String.valueOf((int) dp) : String.valueOf(dp)) + "dp";
+    }
+}
@@ -0,0 +1,29 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+
+/**
+ * A layout file that is not well formed, the message contains the file and the line of the error
+ */
+class LayoutParseException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final File file;
+
+    private final int line;
+
+    LayoutParseException(File file, int line, String message, Throwable cause) {
+        super(file.getPath() + (line > 0 ? ":" + line : "") + ": " + message, cause);
+        this.file = file;
+        this.line = line;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,369 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming layout parser, builds the {@link LayoutEntity} tree directly from StAX events
+ *
+ * Included layouts are parsed into the tree of the including layout. The layout_* attributes of an include replace the ones of the included root
+ * when the include has a width and a height, its id and visibility replace the ones of the included root. The children of an included merge are
+ * added to the parent of the include. A layout with a merge root is generated as the class of its tools:parentTag.
+ *
+ * A ViewStub with a layout is parsed like an include that is created lazily, its inflatedId replaces the id of the included root and a
+ * placeholder with the id of the stub takes its place until it is inflated.
+ */
+class LayoutParser {
+
+    private static final String TOOLS_PREFIX = "tools";
+
+    private static final String INCLUDE = "include";
+
+    private static final String MERGE = "merge";
+
+    private static final String VIEW_STUB = "ViewStub";
+
+    private static final String LAYOUT_REFERENCE = "@layout/";
+
+    private static final String LAYOUT_PARAMS_PREFIX = "android:layout_";
+
+    /**
+     * start of a tag or the class of a merge root
+     */
+    private static final Pattern TAG_NAME = Pattern.compile("<([A-Za-z_][\\w.$]*)|parentTag\\s*=\\s*\"([^\"]+)\"");
+
+    private static final ThreadLocal<XMLInputFactory> FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            return factory;
+        }
+    };
+
+    private long generatedId = 9000000000000000000L;
+
+    /**
+     * reads a layout file through its channel without decoding it
+     *
+     * @param file layout file
+     * @return file content
+     */
+    static byte[] read(File file) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(file); FileChannel channel = inputStream.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                //read until the buffer is full
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * @return true when the layout might include other layouts or inflate them in a ViewStub, then the generated code depends on them
+     */
+    static boolean hasIncludes(byte[] layout) {
+        return contains(layout, ("<" + INCLUDE).getBytes()) || contains(layout, ("<" + VIEW_STUB).getBytes());
+    }
+
+    /**
+     * @return names of the tags and merge root classes of the layout without parsing it, their class hierarchies select the converters
+     */
+    static Set<String> getTagNames(byte[] layout) {
+        Set<String> tagNames = new TreeSet<>();
+        Matcher matcher = TAG_NAME.matcher(new String(layout, Charset.forName("UTF-8")));
+        while (matcher.find()) {
+            tagNames.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        }
+        return tagNames;
+    }
+
+    private static boolean contains(byte[] layout, byte[] tag) {
+        for (int i = 0; i <= layout.length - tag.length; i++) {
+            int j = 0;
+            while (j < tag.length && layout[i + j] == tag[j]) {
+                j++;
+            }
+            if (j == tag.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    LayoutEntity parse(File file, byte[] layout) throws LayoutParseException {
+        LayoutEntity rootLayout = parse(file, layout, new ArrayDeque<File>());
+        //ids of included views can be the same as other ids, every view needs its own field
+        Set<String> ids = new HashSet<>();
+        ids.add(rootLayout.getId());
+        assignIds(rootLayout, "this", ids);
+        return rootLayout;
+    }
+
+    /**
+     * @param includes files of the layouts that are parsed, the last one includes this layout
+     */
+    private LayoutEntity parse(File file, byte[] layout, Deque<File> includes) throws LayoutParseException {
+        XMLStreamReader reader = null;
+        includes.push(file.getAbsoluteFile());
+        try {
+            reader = FACTORY.get().createXMLStreamReader(new ByteArrayInputStream(layout));
+            LayoutEntity rootLayout = null;
+            Deque<LayoutEntity> parents = new ArrayDeque<>();
+            int skippedDepth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (skippedDepth > 0) {
+                        skippedDepth++;
+                    } else if (rootLayout == null) {
+                        rootLayout = createLayout(reader);
+                        if (INCLUDE.equals(rootLayout.getName())) {
+                            throw new LayoutParseException(file, getLine(reader), "<include> can not be the root of a layout", null);
+                        }
+                        if (MERGE.equals(rootLayout.getName()) && includes.size() == 1) {
+                            String parentTag = getToolsAttribute(reader, "parentTag");
+                            if (parentTag == null) {
+                                throw new LayoutParseException(file, getLine(reader), "<merge> needs a tools:parentTag to be generated on its own, exclude the layout or add the tag", null);
+                            }
+                            rootLayout.setName(parentTag);
+                            setDefault(rootLayout, "android:layout_width", "wrap_content");
+                            setDefault(rootLayout, "android:layout_height", "wrap_content");
+                        }
+                        rootLayout.setId(rootLayout.getId() != null ? rootLayout.getId() : generateId(rootLayout.getName()));
+                        rootLayout.setRootLayout(rootLayout.getName());
+                        rootLayout.setLayoutParamsName(rootLayout.getName() + ".LayoutParams");
+                        parents.push(rootLayout);
+                    } else if (INCLUDE.equals(reader.getLocalName())) {
+                        include(file, reader, parents.peek(), includes, false);
+                        skippedDepth = 1;
+                    } else if (VIEW_STUB.equals(reader.getLocalName()) && reader.getAttributeValue(null, "layout") != null) {
+                        include(file, reader, parents.peek(), includes, true);
+                        skippedDepth = 1;
+                    } else if (reader.getAttributeCount() + reader.getNamespaceCount() == 0) {
+                        //elements without attributes are not views, skip them with their children
+                        skippedDepth = 1;
+                    } else {
+                        LayoutEntity parent = parents.peek();
+                        LayoutEntity child = createLayout(reader);
+                        child.setId(child.getId() != null ? child.getId() : generateId(child.getName()));
+                        child.setRootLayout(parent.getName());
+                        child.setLayoutParamsName(parent.getName() + ".LayoutParams");
+                        child.setParent(parent == rootLayout ? "this" : parent.getId());
+                        parent.setHasChildren(true);
+                        parent.addChild(child);
+                        parents.push(child);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (skippedDepth > 0) {
+                        skippedDepth--;
+                    } else {
+                        parents.pop();
+                    }
+                }
+            }
+            if (rootLayout == null) {
+                throw new LayoutParseException(file, -1, "layout has no root element", null);
+            }
+            return rootLayout;
+        } catch (XMLStreamException e) {
+            Location location = e.getLocation();
+            throw new LayoutParseException(file, location != null ? location.getLineNumber() : -1, getMessage(e), e);
+        } finally {
+            includes.pop();
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @param stub true for a ViewStub, the included root becomes the root of a lazy subtree
+     */
+    private void include(File file, XMLStreamReader reader, LayoutEntity parent, Deque<File> includes, boolean stub) throws LayoutParseException {
+        LayoutEntity include = createLayout(reader);
+        String layoutName = include.getXmlAttribute(stub ? "android:layout" : "layout");
+        if (layoutName == null || !layoutName.startsWith(LAYOUT_REFERENCE)) {
+            throw new LayoutParseException(file, getLine(reader), "<" + include.getName() + "> needs a " + (stub ? "android:" : "") + "layout=\"@layout/name\" attribute", null);
+        }
+        File includedFile = findIncludedLayout(file, layoutName.substring(LAYOUT_REFERENCE.length()));
+        if (includedFile == null) {
+            throw new LayoutParseException(file, getLine(reader), "included layout " + layoutName + " not found", null);
+        }
+        if (includes.contains(includedFile)) {
+            throw new LayoutParseException(file, getLine(reader), "layout " + layoutName + " includes itself", null);
+        }
+        LayoutEntity included;
+        try {
+            included = parse(includedFile, read(includedFile), includes);
+        } catch (IOException e) {
+            throw new LayoutParseException(file, getLine(reader), "can not read " + includedFile, e);
+        }
+        if (MERGE.equals(included.getName())) {
+            if (stub) {
+                throw new LayoutParseException(file, getLine(reader), "<ViewStub> can not inflate " + layoutName + ", it has a <merge> root", null);
+            }
+            for (LayoutEntity child : included.getChildren()) {
+                addChild(parent, child);
+            }
+            return;
+        }
+        if (include.getXmlAttribute("android:layout_width") != null && include.getXmlAttribute("android:layout_height") != null) {
+            Iterator<String> attributes = included.getXmlAttributes().keySet().iterator();
+            while (attributes.hasNext()) {
+                if (attributes.next().startsWith(LAYOUT_PARAMS_PREFIX)) {
+                    attributes.remove();
+                }
+            }
+            for (Map.Entry<String, String> attribute : include.getXmlAttributes().entrySet()) {
+                if (attribute.getKey().startsWith(LAYOUT_PARAMS_PREFIX)) {
+                    included.setXmlAttribute(attribute.getKey(), attribute.getValue());
+                }
+            }
+        }
+        if (stub) {
+            String inflatedId = include.getXmlAttribute("android:inflatedId");
+            if (inflatedId != null) {
+                included.setXmlAttribute("android:id", inflatedId);
+                included.setId(normalizeLayoutId(inflatedId));
+            }
+            String stubId = include.getXmlAttribute("android:id");
+            included.setLazy(new LazySubtree(included, stubId != null ? toIdReference(stubId) : null));
+        } else if (include.getId() != null) {
+            included.setXmlAttribute("android:id", include.getXmlAttribute("android:id"));
+            included.setId(include.getId());
+        }
+        if (!stub && include.getXmlAttribute("android:visibility") != null) {
+            included.setXmlAttribute("android:visibility", include.getXmlAttribute("android:visibility"));
+        }
+        addChild(parent, included);
+    }
+
+    /**
+     * @return the included layout from the folder of the including layout or from the default layout folder
+     */
+    private static File findIncludedLayout(File file, String layoutName) {
+        File folder = file.getAbsoluteFile().getParentFile();
+        File included = new File(folder, layoutName + ".xml");
+        if (!included.isFile() && folder.getParentFile() != null) {
+            included = new File(new File(folder.getParentFile(), "layout"), layoutName + ".xml");
+        }
+        return included.isFile() ? included : null;
+    }
+
+    private static void addChild(LayoutEntity parent, LayoutEntity child) {
+        child.setRootLayout(parent.getName());
+        child.setLayoutParamsName(parent.getName() + ".LayoutParams");
+        parent.setHasChildren(true);
+        parent.addChild(child);
+    }
+
+    /**
+     * makes the ids unique in document order and points the children to the ids of their parents
+     */
+    private static void assignIds(LayoutEntity parent, String parentId, Set<String> ids) {
+        for (LayoutEntity child : parent.getChildren()) {
+            String id = child.getId();
+            for (int i = 2; !ids.add(id); i++) {
+                id = child.getId() + i;
+            }
+            child.setId(id);
+            child.setParent(parentId);
+            assignIds(child, id, ids);
+        }
+    }
+
+    private static void setDefault(LayoutEntity layout, String name, String value) {
+        if (layout.getXmlAttribute(name) == null) {
+            layout.setXmlAttribute(name, value);
+        }
+    }
+
+    private static String getToolsAttribute(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (TOOLS_PREFIX.equals(reader.getAttributePrefix(i)) && localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static int getLine(XMLStreamReader reader) {
+        Location location = reader.getLocation();
+        return location != null ? location.getLineNumber() : -1;
+    }
+
+    private LayoutEntity createLayout(XMLStreamReader reader) {
+        LayoutEntity layout = new LayoutEntity();
+        layout.setName(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            if (TOOLS_PREFIX.equals(prefix)) {
+                continue;
+            }
+            layout.setXmlAttribute(getQualifiedName(prefix, reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+        }
+        String id = layout.getXmlAttribute("android:id");
+        if (id != null) {
+            layout.setId(normalizeLayoutId(id));
+        }
+        return layout;
+    }
+
+    private String generateId(String name) {
+        return name.replace(".", "") + (++generatedId);
+    }
+
+    private static String normalizeLayoutId(String layoutId) {
+        return layoutId.replace("@+id/", "").replace("@id/", "");
+    }
+
+    /**
+     * @return java reference of an id, like the converters reference resources
+     */
+    static String toIdReference(String layoutId) {
+        String androidId = "@android:id/";
+        return layoutId.startsWith(androidId) ? "android.R.id." + layoutId.substring(androidId.length()) : "R.id." + normalizeLayoutId(layoutId);
+    }
+
+    private static String getQualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String getMessage(XMLStreamException e) {
+        String message = e.getMessage();
+        if (message == null) {
+            return e.getClass().getSimpleName();
+        }
+        int index = message.indexOf("Message: ");
+        return index >= 0 ? message.substring(index + "Message: ".length()) : message;
+    }
+}
@@ -3,33 +3,34 @@ package io.fabianterhorst.fastlayout.processor;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
-import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
@@ -38,49 +39,138 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 
 import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.Version;
 import io.fabianterhorst.fastlayout.annotations.Converter;
 import io.fabianterhorst.fastlayout.annotations.Layout;
 import io.fabianterhorst.fastlayout.annotations.Layouts;
-import io.fabianterhorst.fastlayout.converters.CardViewLayoutConverter;
-import io.fabianterhorst.fastlayout.converters.DefaultAttributesConverter;
-import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
 import io.fabianterhorst.fastlayout.converters.LayoutConverter;
-import io.fabianterhorst.fastlayout.converters.LayoutConverters;
-import io.fabianterhorst.fastlayout.converters.LinearLayoutConverter;
-import io.fabianterhorst.fastlayout.converters.MarginConverter;
-import io.fabianterhorst.fastlayout.converters.PaddingConverter;
-import io.fabianterhorst.fastlayout.converters.RelativeLayoutConverter;
-import io.fabianterhorst.fastlayout.converters.SizeConverter;
-import io.fabianterhorst.fastlayout.converters.TextViewLayoutConverter;
 
 @SupportedAnnotationTypes({"io.fabianterhorst.fastlayout.annotations.Layouts", "io.fabianterhorst.fastlayout.annotations.Converter"})
+@SupportedOptions({LayoutProcessor.OPTION_CACHE_DIR, LayoutProcessor.OPTION_PARALLEL, LayoutProcessor.OPTION_THREADS, LayoutProcessor.OPTION_INLINE_RESOURCES, LayoutProcessor.OPTION_OPTIMIZE, LayoutProcessor.OPTION_MAX_METHOD_STATEMENTS, LayoutProcessor.OPTION_METRICS, LayoutProcessor.OPTION_BACKEND, LayoutProcessor.OPTION_SHARE_SUBTREES, LayoutProcessor.OPTION_LAZY_SUBTREES, LayoutProcessor.OPTION_VIEW_HOLDERS, LayoutProcessor.OPTION_BINDINGS})
 public class LayoutProcessor extends AbstractProcessor {
 
-    private final LayoutConverters converters = new LayoutConverters();
+    /**
+     * directory of the generated sources cache, defaults to build/intermediates/fastlayout/{variant}
+     */
+    static final String OPTION_CACHE_DIR = "fastlayout.cacheDir";
+
+    /**
+     * compile layouts on a fork join pool
+     */
+    static final String OPTION_PARALLEL = "fastlayout.parallel";
+
+    /**
+     * number of threads used by the parallel mode, defaults to the number of available processors
+     */
+    static final String OPTION_THREADS = "fastlayout.threads";
+
+    /**
+     * replace references to values that do not depend on the configuration by the values, enabled by default
+     */
+    static final String OPTION_INLINE_RESOURCES = "fastlayout.inlineResources";
+
+    /**
+     * remove redundant view groups from the generated layouts
+     */
+    static final String OPTION_OPTIMIZE = "fastlayout.optimize";
+
+    /**
+     * statements of a generated method before the view creation is split into further methods
+     */
+    static final String OPTION_MAX_METHOD_STATEMENTS = "fastlayout.maxMethodStatements";
+
+    /**
+     * write a json report with timings and converter statistics to build/reports/fastlayout/{variant}, enabled by default
+     */
+    static final String OPTION_METRICS = "fastlayout.metrics";
+
+    /**
+     * code generation backend, freemarker renders the templates and direct writes the same sources without a template engine
+     */
+    static final String OPTION_BACKEND = "fastlayout.backend";
+
+    /**
+     * create subtrees that are the same in more than one layout by shared static methods
+     */
+    static final String OPTION_SHARE_SUBTREES = "fastlayout.shareSubtrees";
+
+    /**
+     * create view groups that are initially gone on first use, the views of a ViewStub are always created on first use
+     */
+    static final String OPTION_LAZY_SUBTREES = "fastlayout.lazySubtrees";
+
+    /**
+     * generate a RecyclerView.ViewHolder nested in every layout
+     */
+    static final String OPTION_VIEW_HOLDERS = "fastlayout.viewHolders";
+
+    /**
+     * generate bind methods that skip the setters of views with an id when the value did not change
+     */
+    static final String OPTION_BINDINGS = "fastlayout.bindings";
+
+    static final String BACKEND_FREEMARKER = "freemarker";
+
+    static final String BACKEND_DIRECT = "direct";
 
     private static final String SUFFIX_PREF_WRAPPER = "Layout";
 
     private Configuration mFreemarkerConfiguration;
 
-    private List<LayoutEntity> mChilds;
-
-    private AtomicLong mAtomicLong = new AtomicLong(9000000000000000000L);
+    private LayoutEmitter emitter;
 
-    private List<Object> userConverters;
+    private List<Class<? extends LayoutConverter>> userConverters;
 
     private File projectRoot;
 
+    private LayoutSourceCache sourceCache;
+
+    private WidgetTypeResolver widgetTypes;
+
+    private ResourceValues resourceValues;
+
+    private MetricsReport metricsReport;
+
+    /**
+     * hash of all layout files, read once per round when a layout depends on other layouts
+     */
+    private String layoutsFingerprint;
+
+    /**
+     * hash of all layout files when subtrees are shared, otherwise null
+     */
+    private String sharingFingerprint;
+
+    /**
+     * tag names of all layout files, read with the layouts fingerprint
+     */
+    private Set<String> layoutsTagNames;
+
+    /**
+     * layout classes of the round that were not in the sources cache, the LayoutCache and SharedLayouts are not counted
+     */
+    private int changedLayouts;
+
+    /**
+     * effective options and user converters of the round, every generated layout depends on them
+     */
+    private String compilerFingerprint;
+
+    private final List<LayoutTask> pendingTasks = new ArrayList<>();
+
     @Override
     public SourceVersion getSupportedSourceVersion() {
         return SourceVersion.latestSupported();
     }
 
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        widgetTypes = new WidgetTypeResolver(processingEnv.getElementUtils(), processingEnv.getTypeUtils());
+    }
+
     private Configuration getFreemarkerConfiguration() {
         if (mFreemarkerConfiguration == null) {
             mFreemarkerConfiguration = new Configuration(new Version(2, 3, 22));
@@ -89,6 +179,20 @@ public class LayoutProcessor extends AbstractProcessor {
         return mFreemarkerConfiguration;
     }
 
+    private LayoutEmitter getEmitter() {
+        if (emitter == null) {
+            String backend = processingEnv.getOptions().get(OPTION_BACKEND);
+            if (backend == null || backend.equals(BACKEND_FREEMARKER)) {
+                emitter = new FreemarkerLayoutEmitter(getFreemarkerConfiguration());
+            } else if (backend.equals(BACKEND_DIRECT)) {
+                emitter = new DirectLayoutEmitter();
+            } else {
+                throw new IllegalArgumentException("unknown " + OPTION_BACKEND + " " + backend + ", use " + BACKEND_FREEMARKER + " or " + BACKEND_DIRECT);
+            }
+        }
+        return emitter;
+    }
+
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         File layoutsFile = null;
@@ -96,11 +200,21 @@ public class LayoutProcessor extends AbstractProcessor {
         String packageName = null;
         List<LayoutObject> layouts = new ArrayList<>();
         userConverters = new ArrayList<>();
-        String rOutput = null;
+        RSymbolTable rSymbols = null;
+        long start = System.nanoTime();
         try {
             if (annotations.size() > 0) {
+                metricsReport = new MetricsReport();
+                changedLayouts = 0;
                 layoutsFile = findLayouts();
                 layoutFolders = findLayoutFolders();
+                resourceValues = readResourceValues();
+                if (sourceCache == null) {
+                    sourceCache = new LayoutSourceCache(findCacheFolder(), LayoutSourceCache.processorFingerprint(processingEnv.getOptions()));
+                }
+                layoutsFingerprint = null;
+                layoutsTagNames = null;
+                sharingFingerprint = isSharingSubtrees() ? getLayoutsFingerprint() : null;
             }
 
             for (TypeElement te : annotations) {
@@ -109,17 +223,16 @@ public class LayoutProcessor extends AbstractProcessor {
                     PackageElement packageElement = (PackageElement) classElement.getEnclosingElement();
                     packageName = packageElement.getQualifiedName().toString();
                     Converter converterAnnotation = element.getAnnotation(Converter.class);
-                    if (converterAnnotation != null) {
-                        try {
-                            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "converter " + classElement.getSimpleName() + " found");
-                            userConverters.add(classElement.getClass().newInstance());
-                        } catch (InstantiationException ex) {
-                            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, ex.getMessage());
-                        }
+                    if (converterAnnotation != null && !addConverter(classElement)) {
+                        return true;
                     }
                 }
             }
 
+            if (annotations.size() > 0) {
+                compilerFingerprint = getCompilerFingerprint();
+            }
+
             for (TypeElement te : annotations) {
                 for (javax.lang.model.element.Element element : roundEnv.getElementsAnnotatedWith(te)) {
                     TypeElement classElement = (TypeElement) element;
@@ -130,21 +243,24 @@ public class LayoutProcessor extends AbstractProcessor {
 
                         for (String layoutName : layoutsAnnotation.layouts()) {
                             LayoutObject layoutObject = createLayoutObject(layoutsFile, layoutName, packageElement, element, constantToObjectName(layoutName));
-                            if (layoutObject == null) {
+                            if (layoutObject == null || !addVariants(layouts, layoutFolders, layoutName, packageElement, element, constantToObjectName(layoutName))) {
                                 return true;
                             }
                             layouts.add(layoutObject);
                         }
 
                         if (layoutsAnnotation.ids().length > 0 || (layoutsAnnotation.all() && layoutsAnnotation.exclude().length > 0)) {
-                            if (rOutput == null) {
-                                File r = findR(packageName);
-                                rOutput = readFile(r);
+                            if (rSymbols == null) {
+                                rSymbols = readRSymbols(packageName);
                             }
                         }
 
                         for (int layoutId : layoutsAnnotation.ids()) {
-                            String layoutName = getFieldNameFromLayoutId(rOutput, layoutId);
+                            String layoutName = rSymbols.getName(layoutId);
+                            if (layoutName == null) {
+                                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "layout id 0x" + Integer.toHexString(layoutId) + " not found in R", element);
+                                return true;
+                            }
                             for (File layoutFolder : layoutFolders) {
                                 if (existLayoutInFolder(layoutFolder, layoutName)) {
                                     LayoutObject layoutObject = createLayoutObject(layoutFolder, layoutName, packageElement, element, constantToObjectName(layoutName));
@@ -166,7 +282,7 @@ public class LayoutProcessor extends AbstractProcessor {
                             }
 
                             LayoutObject layoutObject = createLayoutObject(layoutsFile, layoutName, packageElement, element, constantToObjectName(fieldName));
-                            if (layoutObject == null) {
+                            if (layoutObject == null || !addVariants(layouts, layoutFolders, layoutName, packageElement, element, constantToObjectName(fieldName))) {
                                 return true;
                             }
                             layouts.add(layoutObject);
@@ -175,11 +291,12 @@ public class LayoutProcessor extends AbstractProcessor {
                         if (layoutsAnnotation.all() && layoutsFile != null) {
                             File[] files = layoutsFile.listFiles();
                             if (files != null) {
+                                Set<String> excludedLayouts = getLayoutNames(rSymbols, layoutsAnnotation.exclude());
                                 for (File file : files) {
                                     String layoutName = file.getName().replace(".xml", "");
-                                    if (layoutsAnnotation.exclude().length == 0 || !checkExclude(rOutput, layoutName, layoutsAnnotation.exclude())) {
-                                        LayoutObject layoutObject = createLayoutObject(readFile(file), packageElement, element, constantToObjectName(layoutName), layoutsFile);
-                                        if (layoutObject == null) {
+                                    if (!excludedLayouts.contains(layoutName)) {
+                                        LayoutObject layoutObject = createLayoutObject(file, packageElement, element, constantToObjectName(layoutName), layoutsFile);
+                                        if (layoutObject == null || !addVariants(layouts, layoutFolders, layoutName, packageElement, element, constantToObjectName(layoutName))) {
                                             return true;
                                         }
                                         layouts.add(layoutObject);
@@ -190,198 +307,80 @@ public class LayoutProcessor extends AbstractProcessor {
                     }
                 }
             }
+            if (!compileLayouts()) {
+                return true;
+            }
             if (layouts.size() > 0 && packageName != null) {
                 boolean cacheCreated = createLayoutCacheObject(layouts, packageName);
                 if (!cacheCreated) {
                     return true;
                 }
-                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.valueOf(layouts.size()) + " layout" + (layouts.size() > 1 ? "s" : "") + " generated.");
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.valueOf(layouts.size()) + " layout" + (layouts.size() > 1 ? "s" : "") + " generated, " + changedLayouts + " changed.");
+            }
+            if (sourceCache != null && annotations.size() > 0) {
+                sourceCache.save();
+            }
+            if (annotations.size() > 0 && isMetricsEnabled() && !metricsReport.isEmpty()) {
+                metricsReport.setRoundNanos(System.nanoTime() - start);
+                metricsReport.write(findMetricsFile());
             }
         } catch (Exception exception) {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, exception.getMessage());
+        } finally {
+            pendingTasks.clear();
         }
         return true;
     }
 
-    private boolean checkExclude(String rOutput, String name, int[] exclude) {
-        for (int id : exclude) {
-            if (getFieldNameFromLayoutId(rOutput, id).equals(name)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private String normalizeLayoutId(String layoutId) {
-        return layoutId.replace("@+id/", "").replace("@id/", "");
-    }
-
-    private String getIdByNode(Node node) {
-        Node idNote = node.getAttributes().getNamedItem("android:id");
-        if (idNote != null) {
-            return normalizeLayoutId(idNote.getNodeValue());
-        }
-        return null;
-    }
-
-    private List<LayoutEntity> createChildList(Node node, LayoutEntity parent) {
-        List<LayoutEntity> layouts = new ArrayList<>();
-        NodeList nodeList = node.getChildNodes();
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Node child = nodeList.item(i);
-            if (child.getAttributes() != null && child.getAttributes().getLength() > 0) {
-                LayoutEntity layout = createLayoutFromChild(child, node.getNodeName(), parent);
-                mChilds.add(layout);
-                layouts.add(layout);
-                if (child.hasChildNodes()) {
-                    createChildList(child, layout);
-                }
-            }
-        }
-        return layouts;
-    }
-
-    private LayoutEntity createLayoutFromChild(Node node) {
-        LayoutEntity layoutEntity = new LayoutEntity();
-        layoutEntity.setId("this");
-        return createLayoutFromChild(node, node.getNodeName(), layoutEntity);
-    }
-
-    private LayoutEntity createLayoutFromChild(Node node, String root, LayoutEntity parent) {
-        final LayoutEntity layout = new LayoutEntity();
-        String id = getIdByNode(node);
-        if (id == null) {
-            id = node.getNodeName().replace(".", "") + mAtomicLong.incrementAndGet();
-        }
-        layout.setId(id);
-        layout.setName(node.getNodeName());
-        layout.setHasChildren(node.hasChildNodes());
-        layout.setRootLayout(root);
-        layout.setParent(parent.getId());
-        layout.setLayoutParamsName(root + ".LayoutParams");
-
-        NamedNodeMap attributes = node.getAttributes();
-
-        ArrayList<LayoutConverter> layoutConverters = new ArrayList<>();
-        for (Object converter : userConverters) {
-            try {
-                layoutConverters.add((LayoutConverter) converter);
-                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "converter " + converter.getClass().getSimpleName() + " applied");
-            } catch (Exception ex) {
-                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "converter " + converter.getClass().getSimpleName() + " not working");
-            }
-        }
-
-        layoutConverters.addAll(getLayoutConvertersForClasses(getConvertibleClasses(layout.getName())));
-        layoutConverters.addAll(getLayoutConvertersForRootClasses(getConvertibleClasses(root)));
-        /*last*/
-        layoutConverters.add(new LayoutConverter());
-        converters.setAll(layoutConverters);
-        for (int i = 0; i < attributes.getLength(); i++) {
-            Node attribute = attributes.item(i);
-            String attributeName = attribute.getNodeName();
-            String attributeValue = attribute.getNodeValue();
-            if (!attributeName.startsWith("tools:") && !attributeName.startsWith("xmlns:")) {
-                LayoutAttribute layoutAttr = converters.convert(attributeValue, attributeName, layout.getAttributes());
-                if (layoutAttr.getType() != LayoutAttribute.Type.ASSIGNED) {
-                    layout.addAttribute(layoutAttr);
-                }
-            }
-        }
-        List<LayoutAttribute> finishedAttributes = converters.finish(layout.getAttributes());
-        if (finishedAttributes.size() > 0) {
-            layout.addAllAttributes(finishedAttributes);
-        }
-
-        List<LayoutAttribute> layoutAttributes = layout.getAttributes();
-
-        Collections.sort(layoutAttributes, new Comparator<LayoutAttribute>() {
-            @Override
-            public int compare(LayoutAttribute o1, LayoutAttribute o2) {
-                return Integer.compare(o1.getType().getIndex(), o2.getType().getIndex());
-            }
-        });
-
-        for (int i = (layoutAttributes.size() - 1); i >= 0; i--) {
-            LayoutAttribute attribute = layoutAttributes.get(i);
-            if (attribute.isLayoutConstructor()) {
-                attribute.setLast(true);
-                break;
-            }
-        }
-
-        for (int i = (layoutAttributes.size() - 1); i >= 0; i--) {
-            LayoutAttribute attribute = layoutAttributes.get(i);
-            if (attribute.isParamsConstructor()) {
-                attribute.setLast(true);
-                break;
-            }
+    /**
+     * checks a converter once per round, every compiler creates its own instances because converters keep the state of the current view
+     *
+     * A converter is loaded by the processor, so it has to be compiled before, in a module on the annotation processor path. A converter of the
+     * sources that are compiled right now is skipped with a warning.
+     *
+     * @return false when the converter can not be used, the error is printed
+     */
+    private boolean addConverter(TypeElement classElement) {
+        String name = processingEnv.getElementUtils().getBinaryName(classElement).toString();
+        TypeElement layoutConverter = processingEnv.getElementUtils().getTypeElement(LayoutConverter.class.getName());
+        if (layoutConverter != null && !processingEnv.getTypeUtils().isSubtype(classElement.asType(), layoutConverter.asType())) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "converter " + name + " does not extend " + LayoutConverter.class.getName(), classElement);
+            return false;
         }
-
-        return layout;
-    }
-
-    private List<LayoutConverter> getLayoutConvertersForRootClasses(List<Class> convertibleClasses) {
-        List<LayoutConverter> converters = new ArrayList<>();
-        for (Class layoutClass : convertibleClasses) {
-            switch (layoutClass.getName()) {
-                case "android.widget.RelativeLayout":
-                    converters.add(new RelativeLayoutConverter());
-                    break;
-            }
+        Class<?> converterClass;
+        try {
+            converterClass = Class.forName(name, false, getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "converter " + name + " skipped, it is not on the annotation processor path", classElement);
+            return true;
         }
-        return converters;
-    }
-
-    private List<LayoutConverter> getLayoutConvertersForClasses(List<Class> convertibleClasses) {
-        List<LayoutConverter> converters = new ArrayList<>();
-        for (Class layoutClass : convertibleClasses) {
-            switch (layoutClass.getName()) {
-                case "android.view.View":
-                    converters.add(new DefaultAttributesConverter());
-                    converters.add(new MarginConverter());
-                    converters.add(new PaddingConverter());
-                    converters.add(new SizeConverter());
-                    converters.add(new CardViewLayoutConverter());
-                    break;
-                case "android.widget.TextView":
-                    converters.add(new TextViewLayoutConverter());
-                    break;
-                case "android.widget.LinearLayout":
-                    converters.add(new LinearLayoutConverter());
-                    break;
-            }
+        if (!LayoutConverter.class.isAssignableFrom(converterClass)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "converter " + name + " does not extend " + LayoutConverter.class.getName(), classElement);
+            return false;
         }
-        return converters;
-    }
-
-    private List<Class> getConvertibleClasses(String layoutClassName) {
-        ArrayList<Class> convertibleClasses = new ArrayList<>();
         try {
-            if (!layoutClassName.contains(".")) {
-                layoutClassName = "android." + (layoutClassName.equals("View") ? "view" : "widget") + "." + layoutClassName;
-            }
-            try {
-                Class layoutClass = Class.forName(layoutClassName);
-                convertibleClasses.add(layoutClass);
-                convertibleClasses.addAll(getSuperClassesFromClass(layoutClass));
-            } catch (Error error) {
-                convertibleClasses.add(Class.forName("android.view.View"));
-            }
-        } catch (Exception exception) {
-            exception.printStackTrace();
+            converterClass.getDeclaredConstructor().newInstance();
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "converter " + name + " needs a public constructor without parameters", classElement);
+            return false;
+        } catch (InvocationTargetException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "converter " + name + " can not be created: " + e.getCause(), classElement);
+            return false;
         }
-        return convertibleClasses;
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "converter " + classElement.getSimpleName() + " found");
+        userConverters.add(converterClass.asSubclass(LayoutConverter.class));
+        return true;
     }
 
-    private List<Class> getSuperClassesFromClass(Class layoutClass) throws ClassNotFoundException {
-        List<Class> superClasses = new ArrayList<>();
-        Class superClass = layoutClass.getSuperclass();
-        while (superClass != null && !superClass.getName().equals("java.lang.Object")) {
-            superClasses.add(superClass);
-            superClass = superClass.getSuperclass();
+    private Set<String> getLayoutNames(RSymbolTable rSymbols, int[] ids) {
+        Set<String> names = new HashSet<>();
+        for (int id : ids) {
+            String name = rSymbols.getName(id);
+            if (name != null) {
+                names.add(name);
+            }
         }
-        return superClasses;
+        return names;
     }
 
     /**
@@ -490,6 +489,18 @@ public class LayoutProcessor extends AbstractProcessor {
         }
     }
 
+    private File findCacheFolder() throws Exception {
+        String cacheDir = processingEnv.getOptions().get(OPTION_CACHE_DIR);
+        if (cacheDir != null) {
+            return new File(cacheDir);
+        }
+        return new File(findFolder("/build"), "intermediates/fastlayout/" + getProjectRoot().getName());
+    }
+
+    private File findMetricsFile() throws Exception {
+        return new File(findFolder("/build"), "reports/fastlayout/" + getProjectRoot().getName() + "/metrics.json");
+    }
+
     private List<File> findLayoutFolders() throws Exception {
         List<File> layoutFolders = new ArrayList<>();
         File resourceFolder = findFolder("/src/main/res/");
@@ -501,17 +512,27 @@ public class LayoutProcessor extends AbstractProcessor {
                 }
             }
         }
+        //the default folder first, so a variant never comes before the layout it is a variant of
+        Collections.sort(layoutFolders);
         return layoutFolders;
     }
 
-    private String getFieldNameFromLayoutId(String rOutput, int layoutId) {
-        String hex = "0x" + Integer.toHexString(layoutId);
-        int index = rOutput.indexOf(hex);
-        String subToLayout = rOutput.substring(0, index);
-        String[] splitFields = subToLayout.split("=");
-        String lastField = splitFields[splitFields.length - 1];
-        String[] lastFieldNameSplit = lastField.split(" ");
-        return lastFieldNameSplit[lastFieldNameSplit.length - 1];
+    /**
+     * builds the resource id index once, the R.txt symbol list is preferred because it is much smaller than R.java
+     */
+    private RSymbolTable readRSymbols(String packageName) throws Exception {
+        File rTxt = findFolder("/intermediates/symbols/debug/R.txt");
+        if (rTxt.isFile()) {
+            return RSymbolTable.fromSymbolList(rTxt);
+        }
+        return RSymbolTable.fromRJava(readFile(findR(packageName)));
+    }
+
+    private ResourceValues readResourceValues() throws Exception {
+        if ("false".equals(processingEnv.getOptions().get(OPTION_INLINE_RESOURCES))) {
+            return ResourceValues.empty();
+        }
+        return ResourceValues.index(findFolder("/src/main/res/"));
     }
 
     private File findLayout(File layouts, String layoutName) throws Exception {
@@ -519,15 +540,7 @@ public class LayoutProcessor extends AbstractProcessor {
     }
 
     private boolean existLayoutInFolder(File folder, String layoutName) {
-        File[] folders = folder.listFiles();
-        if (folders != null) {
-            for (File layout : folders) {
-                if (layout.getName().replace(".xml", "").equals(layoutName)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return new File(folder, layoutName + ".xml").isFile();
     }
 
     @SuppressWarnings("NewApi")
@@ -537,70 +550,329 @@ public class LayoutProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * adds the layouts of the folders with qualifiers, the LayoutCache picks the one that matches the configuration
+     *
+     * @return false when a variant could not be generated
+     */
+    private boolean addVariants(List<LayoutObject> layouts, List<File> layoutFolders, String layoutName, PackageElement packageElement, javax.lang.model.element.Element element, String fieldName) throws Exception {
+        for (File layoutFolder : layoutFolders) {
+            if (!LayoutQualifiers.parse(layoutFolder.getName()).isDefault() && existLayoutInFolder(layoutFolder, layoutName)) {
+                LayoutObject layoutObject = createLayoutObject(layoutFolder, layoutName, packageElement, element, fieldName);
+                if (layoutObject == null) {
+                    return false;
+                }
+                layouts.add(layoutObject);
+            }
+        }
+        return true;
+    }
+
     private LayoutObject createLayoutObject(File layoutsFile, String layoutName, PackageElement packageElement, javax.lang.model.element.Element element, String fieldName) throws Exception {
-        return createLayoutObject(readFile(findLayout(layoutsFile, layoutName)), packageElement, element, fieldName, layoutsFile);
+        return createLayoutObject(findLayout(layoutsFile, layoutName), packageElement, element, fieldName, layoutsFile);
     }
 
-    private LayoutObject createLayoutObject(String layout, PackageElement packageElement, javax.lang.model.element.Element element, String fieldName, File layoutsFile) throws Exception {
-        mChilds = new ArrayList<>();
-        LayoutEntity rootLayout = new LayoutEntity();
-        try {
-            DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            InputSource is = new InputSource();
-            is.setCharacterStream(new StringReader(layout));
-            Document document = documentBuilder.parse(is);
-            Element rootLayoutElement = document.getDocumentElement();
-            rootLayout = createLayoutFromChild(rootLayoutElement);
-            if (rootLayoutElement.hasChildNodes()) {
-                LayoutEntity layoutEntity = new LayoutEntity();
-                layoutEntity.setId("this");
-                createChildList(rootLayoutElement, layoutEntity);
-                rootLayout.addChildren(mChilds);
-            }
-        } catch (Exception ignore) {
-        }
-
-        JavaFileObject javaFileObject;
-        try {
-            String layoutObjectName = packageElement.getQualifiedName().toString() + "." + fieldName + SUFFIX_PREF_WRAPPER + (layoutsFile.getName().contains("-") ? StringUtils.capitalize(layoutsFile.getName().replace("layout-", "")) : "");
-            Map<String, Object> args = new HashMap<>();
-            //Layout Wrapper
-            javaFileObject = processingEnv.getFiler().createSourceFile(layoutObjectName);
-            Template template = getFreemarkerConfiguration().getTemplate("layout.ftl");
-            args.put("package", packageElement.getQualifiedName());
-            args.put("keyWrapperClassName", fieldName + SUFFIX_PREF_WRAPPER + (layoutsFile.getName().contains("-") ? StringUtils.capitalize(layoutsFile.getName().replace("layout-", "")) : ""));
-            args.put("rootLayout", rootLayout);
-            Writer writer = javaFileObject.openWriter();
-            template.process(args, writer);
-            IOUtils.closeQuietly(writer);
-            return new LayoutObject(layoutObjectName);
-        } catch (Exception e) {
+    private LayoutObject createLayoutObject(File layoutFile, PackageElement packageElement, javax.lang.model.element.Element element, String fieldName, File layoutsFile) throws Exception {
+        LayoutQualifiers qualifiers = LayoutQualifiers.parse(layoutsFile.getName());
+        String keyWrapperClassName = fieldName + SUFFIX_PREF_WRAPPER + LayoutQualifiers.toClassSuffix(layoutsFile.getName());
+        String layoutObjectName = packageElement.getQualifiedName().toString() + "." + keyWrapperClassName;
+        LayoutObject layoutObject = new LayoutObject(layoutObjectName);
+        layoutObject.setLayoutName(layoutFile.getName().substring(0, layoutFile.getName().lastIndexOf('.')));
+        if (!qualifiers.isDefault()) {
+            layoutObject.setVariant(packageElement.getQualifiedName().toString() + "." + fieldName + SUFFIX_PREF_WRAPPER, qualifiers);
+        }
+        byte[] layout = LayoutParser.read(layoutFile);
+        //included layouts and shared subtrees make the generated code depend on other layouts
+        boolean dependsOnLayouts = sharingFingerprint != null || LayoutParser.hasIncludes(layout);
+        String hash = dependsOnLayouts ? sourceCache.hash(layout, layoutObjectName, resourceValues.getFingerprint(), compilerFingerprint, getLayoutsFingerprint(), getHierarchyFingerprint(layoutsTagNames))
+                : sourceCache.hash(layout, layoutObjectName, resourceValues.getFingerprint(), compilerFingerprint, getHierarchyFingerprint(LayoutParser.getTagNames(layout)));
+        String cachedSource = sourceCache.get(layoutObjectName, hash);
+        if (cachedSource == null) {
+            changedLayouts++;
+        }
+        if (cachedSource != null && sharingFingerprint == null) {
+            metricsReport.addCached(layoutObjectName);
+            return writeSourceFile(layoutObjectName, cachedSource, element) ? layoutObject : null;
+        }
+
+        LayoutTask task = new LayoutTask(getEmitter(), userConverters, widgetTypes, resourceValues, isOptimized(), isLazySubtrees(), isViewHolders(), isBindings(), getMaxMethodStatements(), layoutFile, layout, packageElement.getQualifiedName().toString(), keyWrapperClassName, element, hash);
+        task.setCachedSource(cachedSource);
+        pendingTasks.add(task);
+        return layoutObject;
+    }
+
+    /**
+     * compiles all pending layouts, in parallel when enabled, and writes them through the filer on this thread
+     *
+     * @return false when a layout could not be generated
+     */
+    private boolean compileLayouts() throws Exception {
+        List<LayoutTask> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        if (sharingFingerprint != null) {
+            return compileSharedLayouts(tasks);
+        }
+        run(tasks);
+        return writeLayouts(tasks);
+    }
+
+    /**
+     * parses the layouts of every package, shares their subtrees and renders them
+     *
+     * Every layout depends on the subtrees of the other layouts, so the cached sources are only used when all layouts of the package and the
+     * shared layouts are unchanged.
+     *
+     * @return false when a layout could not be generated
+     */
+    private boolean compileSharedLayouts(List<LayoutTask> tasks) throws Exception {
+        Map<String, List<LayoutTask>> packages = new TreeMap<>();
+        for (LayoutTask task : tasks) {
+            List<LayoutTask> packageTasks = packages.get(task.getPackageName());
+            if (packageTasks == null) {
+                packageTasks = new ArrayList<>();
+                packages.put(task.getPackageName(), packageTasks);
+            }
+            packageTasks.add(task);
+        }
+        for (Map.Entry<String, List<LayoutTask>> packageTasks : packages.entrySet()) {
+            String sharedLayoutsName = packageTasks.getKey() + "." + SubtreeSharing.CLASS_NAME;
+            String hash = sourceCache.hash(new byte[0], sharedLayoutsName, resourceValues.getFingerprint(), compilerFingerprint, sharingFingerprint, getHierarchyFingerprint(layoutsTagNames));
+            //an empty source is cached when no subtree is shared
+            String source = sourceCache.get(sharedLayoutsName, hash);
+            boolean cached = source != null;
+            for (LayoutTask task : packageTasks.getValue()) {
+                cached &= task.getCachedSource() != null;
+            }
+            if (cached) {
+                for (LayoutTask task : packageTasks.getValue()) {
+                    metricsReport.addCached(task.getLayoutObjectName());
+                    if (!writeSourceFile(task.getLayoutObjectName(), task.getCachedSource(), task.getElement())) {
+                        return false;
+                    }
+                }
+            } else {
+                for (LayoutTask task : packageTasks.getValue()) {
+                    task.setRenderDeferred(true);
+                }
+                run(packageTasks.getValue());
+                SubtreeSharing sharing = new SubtreeSharing();
+                for (LayoutTask task : packageTasks.getValue()) {
+                    if (!checkCompiled(task)) {
+                        return false;
+                    }
+                    sharing.add(task.getLayoutObjectName(), task.getRootLayout());
+                }
+                List<SharedSubtree> subtrees = sharing.share();
+                run(packageTasks.getValue());
+                if (!writeLayouts(packageTasks.getValue())) {
+                    return false;
+                }
+                source = "";
+                if (!subtrees.isEmpty()) {
+                    StringWriter writer = new StringWriter();
+                    getEmitter().emitSharedLayouts(writer, packageTasks.getKey(), sharing.getDimensions(), subtrees);
+                    source = writer.toString();
+                    int uses = 0;
+                    int savedBytes = 0;
+                    for (SharedSubtree subtree : subtrees) {
+                        int subtreeSavedBytes = SubtreeSharing.getSavedBytes(subtree);
+                        metricsReport.addShared(subtree, subtreeSavedBytes);
+                        uses += subtree.getUses().size();
+                        savedBytes += subtreeSavedBytes;
+                    }
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, subtrees.size() + " shared subtree" + (subtrees.size() > 1 ? "s" : "") + " used " + uses + " times, about " + savedBytes + " bytes of generated source saved");
+                }
+                sourceCache.put(sharedLayoutsName, hash, source);
+            }
+            if (!source.isEmpty() && !writeSourceFile(sharedLayoutsName, source)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run(List<LayoutTask> tasks) throws InterruptedException {
+        if (isParallel() && tasks.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(getParallelism());
+            try {
+                pool.invokeAll(tasks);
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (LayoutTask task : tasks) {
+                task.call();
+            }
+        }
+    }
+
+    /**
+     * writes the compiled layouts through the filer on this thread
+     *
+     * @return false when a layout could not be generated
+     */
+    private boolean writeLayouts(List<LayoutTask> tasks) {
+        for (LayoutTask task : tasks) {
+            for (String note : task.getNotes()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, note);
+            }
+            if (!checkCompiled(task)) {
+                return false;
+            }
+            metricsReport.addCompiled(task.getMetrics());
+            sourceCache.put(task.getLayoutObjectName(), task.getHash(), task.getSource());
+            if (!writeSourceFile(task.getLayoutObjectName(), task.getSource(), task.getElement())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when the task failed, the error is printed
+     */
+    private boolean checkCompiled(LayoutTask task) {
+        Exception e = task.getException();
+        if (e instanceof LayoutParseException) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), task.getElement());
+            return false;
+        } else if (e != null) {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
-                    "En error occurred while generating Prefs code " + e.getClass() + e.getMessage(), element);
+                    "En error occurred while generating Prefs code " + e.getClass() + e.getMessage(), task.getElement());
             e.printStackTrace();
             // Problem detected: halt
-            return null;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isOptimized() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_OPTIMIZE));
+    }
+
+    private int getMaxMethodStatements() {
+        String maxStatements = processingEnv.getOptions().get(OPTION_MAX_METHOD_STATEMENTS);
+        return maxStatements != null ? Math.max(1, Integer.parseInt(maxStatements)) : LayoutMethod.DEFAULT_MAX_STATEMENTS;
+    }
+
+    private boolean isLazySubtrees() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_LAZY_SUBTREES));
+    }
+
+    private boolean isViewHolders() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_VIEW_HOLDERS));
+    }
+
+    private boolean isBindings() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_BINDINGS));
+    }
+
+    private boolean isSharingSubtrees() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_SHARE_SUBTREES));
+    }
+
+    /**
+     * @return hash of all layout files
+     */
+    private String getLayoutsFingerprint() throws Exception {
+        if (layoutsFingerprint != null) {
+            return layoutsFingerprint;
+        }
+        List<File> files = new ArrayList<>();
+        for (File layoutFolder : findLayoutFolders()) {
+            File[] layoutFiles = layoutFolder.listFiles();
+            if (layoutFiles != null) {
+                Collections.addAll(files, layoutFiles);
+            }
+        }
+        Collections.sort(files);
+        ByteArrayOutputStream layouts = new ByteArrayOutputStream();
+        layoutsTagNames = new TreeSet<>();
+        for (File file : files) {
+            if (file.isFile()) {
+                byte[] layout = LayoutParser.read(file);
+                layouts.write(file.getPath().getBytes("UTF-8"));
+                layouts.write(0);
+                layouts.write(layout);
+                layoutsTagNames.addAll(LayoutParser.getTagNames(layout));
+            }
+        }
+        layoutsFingerprint = sourceCache.hash(layouts.toByteArray());
+        return layoutsFingerprint;
+    }
+
+    /**
+     * @return class hierarchies of the tags, a changed widget class on the classpath selects other converters
+     */
+    private String getHierarchyFingerprint(Set<String> tagNames) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (String tagName : tagNames) {
+            fingerprint.append(tagName).append('=').append(widgetTypes.getHierarchy(tagName)).append(';');
         }
+        return fingerprint.toString();
+    }
+
+    /**
+     * @return the effective options that change the generated code and the class files of the user converters
+     */
+    private String getCompilerFingerprint() throws IOException {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(OPTION_BACKEND).append('=').append(getEmitter().getClass().getName())
+                .append(';').append(OPTION_INLINE_RESOURCES).append('=').append(!"false".equals(processingEnv.getOptions().get(OPTION_INLINE_RESOURCES)))
+                .append(';').append(OPTION_OPTIMIZE).append('=').append(isOptimized())
+                .append(';').append(OPTION_SHARE_SUBTREES).append('=').append(isSharingSubtrees())
+                .append(';').append(OPTION_LAZY_SUBTREES).append('=').append(isLazySubtrees())
+                .append(';').append(OPTION_VIEW_HOLDERS).append('=').append(isViewHolders())
+                .append(';').append(OPTION_BINDINGS).append('=').append(isBindings())
+                .append(';').append(OPTION_MAX_METHOD_STATEMENTS).append('=').append(getMaxMethodStatements());
+        for (Class<? extends LayoutConverter> converterClass : userConverters) {
+            fingerprint.append(';').append(converterClass.getName()).append('=');
+            try (InputStream inputStream = converterClass.getResourceAsStream("/" + converterClass.getName().replace('.', '/') + ".class")) {
+                fingerprint.append(inputStream != null ? sourceCache.hash(IOUtils.toByteArray(inputStream)) : "");
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private boolean isMetricsEnabled() {
+        return !"false".equals(processingEnv.getOptions().get(OPTION_METRICS));
+    }
+
+    private boolean isParallel() {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_PARALLEL));
+    }
+
+    private int getParallelism() {
+        String threads = processingEnv.getOptions().get(OPTION_THREADS);
+        if (threads != null) {
+            return Math.max(1, Integer.parseInt(threads));
+        }
+        return Runtime.getRuntime().availableProcessors();
     }
 
     private boolean createLayoutCacheObject(List<LayoutObject> layouts, String packageName) {
-        JavaFileObject javaFileObject;
         try {
+            String layoutCacheName = packageName + ".LayoutCache";
             Map<String, LayoutObject> layoutMap = new HashMap<>();
+            List<String> layoutNames = new ArrayList<>();
             for (LayoutObject layout : layouts) {
                 String name = layout.getName();
                 layoutMap.put(stringToConstant(name.replace(packageName + ".", "")), layout);
+                layoutNames.add(layout.getQualifiers() != null ? name + " " + layout.getQualifiers().getFolderName() : name);
             }
-
-            Map<String, Object> args = new HashMap<>();
-            //Layout Cache Wrapper
-            javaFileObject = processingEnv.getFiler().createSourceFile(packageName + ".LayoutCache");
-            Template template = getFreemarkerConfiguration().getTemplate("layoutcache.ftl");
-            args.put("package", packageName);
-            args.put("layouts", layoutMap);
-            Writer writer = javaFileObject.openWriter();
-            template.process(args, writer);
-            IOUtils.closeQuietly(writer);
+            Collections.sort(layoutNames);
+            Map<String, List<String>> variants = getVariants(layoutMap, packageName);
+
+            //the layout cache only changes when layouts are added or removed
+            String hash = sourceCache.hash(new byte[0], layoutCacheName, layoutNames.toString());
+            String source = sourceCache.get(layoutCacheName, hash);
+            if (source == null) {
+                StringWriter writer = new StringWriter();
+                getEmitter().emitLayoutCache(writer, packageName, layoutMap, variants);
+                source = writer.toString();
+                sourceCache.put(layoutCacheName, hash, source);
+            }
+            return writeSourceFile(layoutCacheName, source);
         } catch (Exception e) {
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
                     "En error occurred while generating Prefs code " + e.getClass() + e.getMessage());
@@ -608,6 +880,60 @@ public class LayoutProcessor extends AbstractProcessor {
             // Problem detected: halt
             return false;
         }
-        return true;
+    }
+
+    /**
+     * @return constant of every layout with variants to the constants of its variants, the best variant first
+     */
+    private Map<String, List<String>> getVariants(Map<String, LayoutObject> layoutMap, String packageName) {
+        Map<String, List<LayoutObject>> variantObjects = new TreeMap<>();
+        for (LayoutObject layout : layoutMap.values()) {
+            LayoutQualifiers qualifiers = layout.getQualifiers();
+            if (qualifiers == null) {
+                continue;
+            }
+            String defaultKey = stringToConstant(layout.getDefaultName().replace(packageName + ".", ""));
+            if (qualifiers.getUnsupported() != null || !layoutMap.containsKey(defaultKey)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, layout.getName() + " is not selected by the configuration" + (qualifiers.getUnsupported() != null ? ", the qualifier " + qualifiers.getUnsupported() + " is not supported" : ", the layout has no default") + ", use its own constant");
+                continue;
+            }
+            List<LayoutObject> objects = variantObjects.get(defaultKey);
+            if (objects == null) {
+                objects = new ArrayList<>();
+                variantObjects.put(defaultKey, objects);
+            }
+            objects.add(layout);
+        }
+        Map<String, List<String>> variants = new TreeMap<>();
+        for (Map.Entry<String, List<LayoutObject>> objects : variantObjects.entrySet()) {
+            Collections.sort(objects.getValue(), new Comparator<LayoutObject>() {
+                @Override
+                public int compare(LayoutObject o1, LayoutObject o2) {
+                    return o1.getQualifiers().compareTo(o2.getQualifiers());
+                }
+            });
+            List<String> keys = new ArrayList<>();
+            for (LayoutObject layout : objects.getValue()) {
+                keys.add(stringToConstant(layout.getName().replace(packageName + ".", "")));
+            }
+            variants.put(objects.getKey(), keys);
+        }
+        return variants;
+    }
+
+    private boolean writeSourceFile(String className, String source, javax.lang.model.element.Element... originatingElements) {
+        Writer writer = null;
+        try {
+            JavaFileObject javaFileObject = processingEnv.getFiler().createSourceFile(className, originatingElements);
+            writer = javaFileObject.openWriter();
+            writer.write(source);
+            return true;
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "En error occurred while writing " + className + " " + e.getMessage());
+            return false;
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
     }
 }
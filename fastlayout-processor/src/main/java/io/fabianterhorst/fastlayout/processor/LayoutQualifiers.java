@@ -0,0 +1,167 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The qualifiers of a layout folder like layout-sw600dp-land, checked against the Configuration by the generated LayoutCache
+ *
+ * A variant matches when all of its qualifiers match. Like the resource system, the best matching variant is the one with the best qualifier of
+ * the highest precedence: a qualifier beats no qualifier, a larger width, size or version beats a smaller one. That order does not depend on the
+ * configuration, so the variants are sorted once and the first matching variant is the best one.
+ */
+class LayoutQualifiers implements Comparable<LayoutQualifiers> {
+
+    private static final Pattern DP = Pattern.compile("(sw|w|h)(\\d+)dp");
+
+    private static final Pattern VERSION = Pattern.compile("v(\\d+)");
+
+    private static final List<String> SIZES = Arrays.asList("small", "normal", "large", "xlarge");
+
+    private static final List<String> UI_MODES = Arrays.asList("car", "desk", "television", "appliance", "watch");
+
+    /*precedence of the supported qualifiers*/
+    private static final int LAYOUT_DIRECTION = 0;
+
+    private static final int SMALLEST_WIDTH = 1;
+
+    private static final int WIDTH = 2;
+
+    private static final int HEIGHT = 3;
+
+    private static final int SIZE = 4;
+
+    private static final int ASPECT = 5;
+
+    private static final int ORIENTATION = 6;
+
+    private static final int UI_MODE = 7;
+
+    private static final int NIGHT = 8;
+
+    private static final int PLATFORM_VERSION = 9;
+
+    private final String folderName;
+
+    /**
+     * rank of every qualifier type, -1 when the folder does not have it
+     */
+    private final int[] ranks = new int[PLATFORM_VERSION + 1];
+
+    private final List<String> conditions = new ArrayList<>();
+
+    private String unsupported;
+
+    private LayoutQualifiers(String folderName) {
+        this.folderName = folderName;
+        Arrays.fill(ranks, -1);
+    }
+
+    /**
+     * @param folderName name of a layout folder, layout has no qualifiers
+     */
+    static LayoutQualifiers parse(String folderName) {
+        LayoutQualifiers qualifiers = new LayoutQualifiers(folderName);
+        String[] parts = folderName.split("-");
+        for (int i = 1; i < parts.length && qualifiers.unsupported == null; i++) {
+            qualifiers.add(parts[i].toLowerCase());
+        }
+        return qualifiers;
+    }
+
+    /**
+     * @return suffix of the generated class, layout-sw600dp-land is Sw600dpLand
+     */
+    static String toClassSuffix(String folderName) {
+        StringBuilder suffix = new StringBuilder();
+        String[] parts = folderName.split("-");
+        for (int i = 1; i < parts.length; i++) {
+            suffix.append(StringUtils.capitalize(parts[i]));
+        }
+        return suffix.toString();
+    }
+
+    private void add(String qualifier) {
+        Matcher dp = DP.matcher(qualifier);
+        Matcher version = VERSION.matcher(qualifier);
+        if ("ldrtl".equals(qualifier) || "ldltr".equals(qualifier)) {
+            add(LAYOUT_DIRECTION, 1, "(configuration.screenLayout & Configuration.SCREENLAYOUT_LAYOUTDIR_MASK) == Configuration.SCREENLAYOUT_LAYOUTDIR_" + ("ldrtl".equals(qualifier) ? "RTL" : "LTR"));
+        } else if (dp.matches()) {
+            int value = Integer.parseInt(dp.group(2));
+            switch (dp.group(1)) {
+                case "sw":
+                    add(SMALLEST_WIDTH, value, "configuration.smallestScreenWidthDp >= " + value);
+                    break;
+                case "w":
+                    add(WIDTH, value, "configuration.screenWidthDp >= " + value);
+                    break;
+                default:
+                    add(HEIGHT, value, "configuration.screenHeightDp >= " + value);
+                    break;
+            }
+        } else if (SIZES.contains(qualifier)) {
+            add(SIZE, SIZES.indexOf(qualifier) + 1, "(configuration.screenLayout & Configuration.SCREENLAYOUT_SIZE_MASK) >= Configuration.SCREENLAYOUT_SIZE_" + qualifier.toUpperCase());
+        } else if ("long".equals(qualifier) || "notlong".equals(qualifier)) {
+            add(ASPECT, 1, "(configuration.screenLayout & Configuration.SCREENLAYOUT_LONG_MASK) == Configuration.SCREENLAYOUT_LONG_" + ("long".equals(qualifier) ? "YES" : "NO"));
+        } else if ("port".equals(qualifier) || "land".equals(qualifier)) {
+            add(ORIENTATION, 1, "configuration.orientation == Configuration.ORIENTATION_" + ("port".equals(qualifier) ? "PORTRAIT" : "LANDSCAPE"));
+        } else if (UI_MODES.contains(qualifier)) {
+            add(UI_MODE, 1, "(configuration.uiMode & Configuration.UI_MODE_TYPE_MASK) == Configuration.UI_MODE_TYPE_" + qualifier.toUpperCase());
+        } else if ("night".equals(qualifier) || "notnight".equals(qualifier)) {
+            add(NIGHT, 1, "(configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK) == Configuration.UI_MODE_NIGHT_" + ("night".equals(qualifier) ? "YES" : "NO"));
+        } else if (version.matches()) {
+            int value = Integer.parseInt(version.group(1));
+            add(PLATFORM_VERSION, value, "android.os.Build.VERSION.SDK_INT >= " + value);
+        } else {
+            unsupported = qualifier;
+        }
+    }
+
+    private void add(int type, int rank, String condition) {
+        ranks[type] = rank;
+        conditions.add(condition);
+    }
+
+    String getFolderName() {
+        return folderName;
+    }
+
+    /**
+     * @return true for the layout folder without qualifiers
+     */
+    boolean isDefault() {
+        return conditions.isEmpty() && unsupported == null;
+    }
+
+    /**
+     * @return the first qualifier that can not be checked at runtime, like a locale or a density, or null
+     */
+    String getUnsupported() {
+        return unsupported;
+    }
+
+    /**
+     * @return java condition on a Configuration named configuration
+     */
+    String getCondition() {
+        return StringUtils.join(conditions, " && ");
+    }
+
+    /**
+     * better variants first
+     */
+    @Override
+    public int compareTo(LayoutQualifiers other) {
+        for (int i = 0; i < ranks.length; i++) {
+            if (ranks[i] != other.ranks[i]) {
+                return Integer.compare(other.ranks[i], ranks[i]);
+            }
+        }
+        return folderName.compareTo(other.folderName);
+    }
+}
@@ -0,0 +1,159 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import io.fabianterhorst.fastlayout.converters.LayoutConverter;
+
+/**
+ * Persistent cache of generated sources, keyed by a content hash of everything a source depends on
+ *
+ * The manifest maps every generated class name to the hash of its inputs, the generated source itself
+ * is stored next to it. Unchanged layouts are written from the cache without parsing or rendering them again.
+ */
+class LayoutSourceCache {
+
+    private static final String MANIFEST = "manifest.properties";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+
+    private final String fingerprint;
+
+    private final Properties previous = new Properties();
+
+    private final Properties current = new Properties();
+
+    LayoutSourceCache(File directory, String fingerprint) {
+        this.directory = directory;
+        this.fingerprint = fingerprint;
+        File manifest = new File(directory, MANIFEST);
+        if (manifest.isFile()) {
+            try (InputStream inputStream = new FileInputStream(manifest)) {
+                previous.load(inputStream);
+            } catch (IOException ignore) {
+                previous.clear();
+            }
+        }
+    }
+
+    /**
+     * fingerprint of the processor itself, a new processor or converters version invalidates all cached sources
+     *
+     * @param options processor options that influence the generated code
+     * @return fingerprint string
+     */
+    static String processorFingerprint(Map<String, String> options) {
+        StringBuilder fingerprint = new StringBuilder();
+        appendLocation(fingerprint, LayoutSourceCache.class);
+        appendLocation(fingerprint, LayoutConverter.class);
+        for (Map.Entry<String, String> option : new TreeMap<>(options).entrySet()) {
+            fingerprint.append(';').append(option.getKey()).append('=').append(option.getValue());
+        }
+        return fingerprint.toString();
+    }
+
+    private static void appendLocation(StringBuilder fingerprint, Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        URL location = codeSource != null ? codeSource.getLocation() : null;
+        if (location != null) {
+            fingerprint.append(location);
+            if ("file".equals(location.getProtocol())) {
+                File file = FileUtils.toFile(location);
+                fingerprint.append(':').append(file.length()).append(':').append(file.lastModified());
+            }
+            fingerprint.append(';');
+        }
+    }
+
+    String hash(byte[] content, String... inputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(fingerprint.getBytes(UTF_8));
+            digest.update(content);
+            for (String input : inputs) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(input).getBytes(UTF_8));
+            }
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param className generated class name
+     * @param hash      hash of the current inputs
+     * @return the cached source when the inputs did not change since the last build, otherwise null
+     */
+    String get(String className, String hash) {
+        File source = getSourceFile(className);
+        if (hash.equals(previous.getProperty(className)) && source.isFile()) {
+            try (InputStream inputStream = new FileInputStream(source)) {
+                String cached = IOUtils.toString(inputStream, UTF_8);
+                current.setProperty(className, hash);
+                return cached;
+            } catch (IOException ignore) {
+            }
+        }
+        return null;
+    }
+
+    void put(String className, String hash, String source) {
+        current.setProperty(className, hash);
+        try {
+            FileUtils.writeStringToFile(getSourceFile(className), source, UTF_8);
+        } catch (IOException ignore) {
+            current.remove(className);
+        }
+    }
+
+    /**
+     * writes the manifest and deletes cached sources of layouts that were removed since the last build
+     */
+    void save() throws IOException {
+        for (String className : previous.stringPropertyNames()) {
+            if (!current.containsKey(className)) {
+                FileUtils.deleteQuietly(getSourceFile(className));
+            }
+        }
+        FileUtils.forceMkdir(directory);
+        try (OutputStream outputStream = new FileOutputStream(new File(directory, MANIFEST))) {
+            current.store(outputStream, "FastLayout generated sources");
+        }
+        previous.clear();
+        previous.putAll(current);
+        current.clear();
+    }
+
+    private File getSourceFile(String className) {
+        return new File(directory, className + ".java");
+    }
+}
@@ -0,0 +1,156 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.lang.model.element.Element;
+
+import io.fabianterhorst.fastlayout.converters.LayoutConverter;
+
+/**
+ * A layout that has to be compiled, can run on any thread because it does not touch the filer or the messager
+ */
+class LayoutTask implements Callable<LayoutTask> {
+
+    private final LayoutEmitter emitter;
+
+    private final List<Class<? extends LayoutConverter>> userConverters;
+
+    private final WidgetTypeResolver widgetTypes;
+
+    private final ResourceValues resourceValues;
+
+    private final boolean optimize;
+
+    private final boolean lazySubtrees;
+
+    private final boolean viewHolders;
+
+    private final boolean bindings;
+
+    private final int maxStatements;
+
+    private final File file;
+
+    private final byte[] layout;
+
+    private final String packageName;
+
+    private final String keyWrapperClassName;
+
+    private final Element element;
+
+    private final String hash;
+
+    private final LayoutCompiler compiler;
+
+    private boolean renderDeferred;
+
+    private LayoutEntity rootLayout;
+
+    private String cachedSource;
+
+    private String source;
+
+    private List<String> notes = Collections.emptyList();
+
+    private LayoutMetrics metrics;
+
+    private Exception exception;
+
+    LayoutTask(LayoutEmitter emitter, List<Class<? extends LayoutConverter>> userConverters, WidgetTypeResolver widgetTypes, ResourceValues resourceValues, boolean optimize, boolean lazySubtrees, boolean viewHolders, boolean bindings, int maxStatements, File file, byte[] layout, String packageName, String keyWrapperClassName, Element element, String hash) {
+        this.emitter = emitter;
+        this.userConverters = userConverters;
+        this.widgetTypes = widgetTypes;
+        this.resourceValues = resourceValues;
+        this.optimize = optimize;
+        this.lazySubtrees = lazySubtrees;
+        this.viewHolders = viewHolders;
+        this.bindings = bindings;
+        this.maxStatements = maxStatements;
+        this.file = file;
+        this.layout = layout;
+        this.packageName = packageName;
+        this.keyWrapperClassName = keyWrapperClassName;
+        this.element = element;
+        this.hash = hash;
+        this.compiler = new LayoutCompiler(emitter, userConverters, widgetTypes, resourceValues, optimize, lazySubtrees, viewHolders, bindings, maxStatements);
+    }
+
+    /**
+     * the first call only parses the layout, so the processor can share subtrees between all parsed layouts before the second call renders it
+     */
+    void setRenderDeferred(boolean renderDeferred) {
+        this.renderDeferred = renderDeferred;
+    }
+
+    /**
+     * @param cachedSource source of the last build, it is used when the task is not called
+     */
+    void setCachedSource(String cachedSource) {
+        this.cachedSource = cachedSource;
+    }
+
+    @Override
+    public LayoutTask call() {
+        try {
+            boolean firstCall = rootLayout == null;
+            if (firstCall) {
+                rootLayout = compiler.parse(file, layout);
+            }
+            if (!firstCall || !renderDeferred) {
+                source = compiler.render(rootLayout, packageName, keyWrapperClassName);
+            }
+        } catch (Exception e) {
+            exception = e;
+        }
+        notes = compiler.getNotes();
+        metrics = compiler.getMetrics();
+        return this;
+    }
+
+    String getLayoutObjectName() {
+        return packageName + "." + keyWrapperClassName;
+    }
+
+    /**
+     * @return the converted layout after the first call
+     */
+    LayoutEntity getRootLayout() {
+        return rootLayout;
+    }
+
+    String getCachedSource() {
+        return cachedSource;
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    Element getElement() {
+        return element;
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    List<String> getNotes() {
+        return notes;
+    }
+
+    LayoutMetrics getMetrics() {
+        return metrics;
+    }
+
+    Exception getException() {
+        return exception;
+    }
+}
@@ -0,0 +1,38 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RecyclerView.ViewHolder nested in a generated layout when fastlayout.viewHolders is enabled
+ *
+ * It has a field for every view with an android:id. The views of lazy subtrees do not exist when the holder is created, they are left to the
+ * getters of the layout.
+ */
+public class LayoutViewHolder {
+
+    static final String CLASS_NAME = "ViewHolder";
+
+    private final List<LayoutEntity> views = new ArrayList<>();
+
+    private LayoutViewHolder() {
+    }
+
+    static LayoutViewHolder collect(LayoutEntity rootLayout) {
+        LayoutViewHolder viewHolder = new LayoutViewHolder();
+        for (LayoutEntity child : rootLayout.getDescendants()) {
+            if (child.isHasId() && child.getLazy() == null) {
+                viewHolder.views.add(child);
+            }
+        }
+        return viewHolder;
+    }
+
+    public String getClassName() {
+        return CLASS_NAME;
+    }
+
+    public List<LayoutEntity> getViews() {
+        return views;
+    }
+}
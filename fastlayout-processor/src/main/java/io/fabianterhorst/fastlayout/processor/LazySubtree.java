@@ -0,0 +1,59 @@
+package io.fabianterhorst.fastlayout.processor;
+
+/**
+ * A subtree that the generated layout creates on first use, a LazyView placeholder takes its place until then
+ *
+ * The views of a ViewStub are always created lazily, view groups that are initially gone only when fastlayout.lazySubtrees is enabled. A lazy
+ * subtree inside a lazy subtree is created together with the outer one.
+ */
+public class LazySubtree {
+
+    private final LayoutEntity root;
+
+    private final String stubId;
+
+    private int index;
+
+    /**
+     * @param root   first view of the subtree
+     * @param stubId id reference of the placeholder or null
+     */
+    LazySubtree(LayoutEntity root, String stubId) {
+        this.root = root;
+        this.stubId = stubId;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    public LayoutEntity getRoot() {
+        return root;
+    }
+
+    public String getStubId() {
+        return stubId;
+    }
+
+    /**
+     * @return index the placeholder passes to the factory
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return field of the placeholder
+     */
+    public String getStubName() {
+        return root.getId() + "Stub";
+    }
+
+    /**
+     * @return method that creates the subtree, same capitalization as the getters
+     */
+    public String getMethodName() {
+        String id = root.getId();
+        return "inflate" + id.substring(0, 1).toUpperCase() + id.substring(1).toLowerCase();
+    }
+}
@@ -0,0 +1,186 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Machine readable report of a processor round, written as json to build/reports/fastlayout/{variant}/metrics.json
+ *
+ * Every compiled layout lists its parse, convert and render time, its views and attributes and the attributes that fell through to the generic
+ * setter. Layouts that were taken from the source cache are listed without timings. The converter hits and fall throughs are summed up over all
+ * compiled layouts to find attributes that miss a converter. Shared subtrees list the layouts that call them and the estimated characters of
+ * generated source they save.
+ */
+class MetricsReport {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<LayoutMetrics> compiled = new ArrayList<>();
+
+    private final List<String> cached = new ArrayList<>();
+
+    private final List<SharedSubtree> shared = new ArrayList<>();
+
+    private final List<Integer> sharedSavedBytes = new ArrayList<>();
+
+    private long roundNanos;
+
+    void addCompiled(LayoutMetrics metrics) {
+        compiled.add(metrics);
+    }
+
+    void addCached(String className) {
+        cached.add(className);
+    }
+
+    void addShared(SharedSubtree subtree, int savedBytes) {
+        shared.add(subtree);
+        sharedSavedBytes.add(savedBytes);
+    }
+
+    void setRoundNanos(long roundNanos) {
+        this.roundNanos = roundNanos;
+    }
+
+    boolean isEmpty() {
+        return compiled.isEmpty() && cached.isEmpty();
+    }
+
+    void write(File file) throws IOException {
+        FileUtils.writeStringToFile(file, toJson(), UTF_8);
+    }
+
+    String toJson() {
+        List<LayoutMetrics> layouts = new ArrayList<>(compiled);
+        Collections.sort(layouts, new Comparator<LayoutMetrics>() {
+            @Override
+            public int compare(LayoutMetrics o1, LayoutMetrics o2) {
+                return o1.getClassName().compareTo(o2.getClassName());
+            }
+        });
+        List<String> cachedLayouts = new ArrayList<>(cached);
+        Collections.sort(cachedLayouts);
+        Map<String, Map<String, Integer>> converterHits = new TreeMap<>();
+        Map<String, Integer> fallthrough = new TreeMap<>();
+        long parseNanos = 0;
+        long convertNanos = 0;
+        long renderNanos = 0;
+        for (LayoutMetrics layout : layouts) {
+            parseNanos += layout.getParseNanos();
+            convertNanos += layout.getConvertNanos();
+            renderNanos += layout.getRenderNanos();
+            for (Map.Entry<String, Map<String, Integer>> attributeHits : layout.getConverterHits().entrySet()) {
+                Map<String, Integer> hits = converterHits.get(attributeHits.getKey());
+                if (hits == null) {
+                    hits = new TreeMap<>();
+                    converterHits.put(attributeHits.getKey(), hits);
+                }
+                for (Map.Entry<String, Integer> hit : attributeHits.getValue().entrySet()) {
+                    LayoutMetrics.increment(hits, hit.getKey(), hit.getValue());
+                }
+            }
+            for (Map.Entry<String, Integer> attribute : layout.getFallthrough().entrySet()) {
+                LayoutMetrics.increment(fallthrough, attribute.getKey(), attribute.getValue());
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"roundMicros\": ").append(toMicros(roundNanos)).append(",\n");
+        json.append("  \"compiled\": ").append(layouts.size()).append(",\n");
+        json.append("  \"cached\": ").append(cachedLayouts.size()).append(",\n");
+        json.append("  \"parseMicros\": ").append(toMicros(parseNanos)).append(",\n");
+        json.append("  \"convertMicros\": ").append(toMicros(convertNanos)).append(",\n");
+        json.append("  \"renderMicros\": ").append(toMicros(renderNanos)).append(",\n");
+        json.append("  \"layouts\": [");
+        for (int i = 0; i < layouts.size(); i++) {
+            LayoutMetrics layout = layouts.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"class\": ").append(quote(layout.getClassName()));
+            json.append(", \"file\": ").append(quote(layout.getFileName()));
+            json.append(", \"parseMicros\": ").append(toMicros(layout.getParseNanos()));
+            json.append(", \"convertMicros\": ").append(toMicros(layout.getConvertNanos()));
+            json.append(", \"renderMicros\": ").append(toMicros(layout.getRenderNanos()));
+            json.append(", \"nodes\": ").append(layout.getNodes());
+            json.append(", \"attributes\": ").append(layout.getAttributes());
+            json.append(", \"fallthrough\": ");
+            appendCounts(json, layout.getFallthrough());
+            json.append('}');
+        }
+        json.append(layouts.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"cachedLayouts\": [");
+        for (int i = 0; i < cachedLayouts.size(); i++) {
+            json.append(i == 0 ? "" : ", ").append(quote(cachedLayouts.get(i)));
+        }
+        json.append("],\n");
+        json.append("  \"sharedSubtrees\": [");
+        long savedBytes = 0;
+        for (int i = 0; i < shared.size(); i++) {
+            SharedSubtree subtree = shared.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"method\": ").append(quote(subtree.getClassName() + "." + subtree.getMethodName()));
+            json.append(", \"views\": ").append(subtree.getRoot().getDescendants().size() + 1);
+            json.append(", \"uses\": ").append(subtree.getUses().size());
+            json.append(", \"savedBytes\": ").append(sharedSavedBytes.get(i));
+            json.append(", \"layouts\": [");
+            int layout = 0;
+            for (String className : subtree.getLayouts()) {
+                json.append(layout++ == 0 ? "" : ", ").append(quote(className));
+            }
+            json.append("]}");
+            savedBytes += sharedSavedBytes.get(i);
+        }
+        json.append(shared.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"sharedSavedBytes\": ").append(savedBytes).append(",\n");
+        json.append("  \"converterHits\": {");
+        boolean first = true;
+        for (Map.Entry<String, Map<String, Integer>> attributeHits : converterHits.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            json.append("    ").append(quote(attributeHits.getKey())).append(": ");
+            appendCounts(json, attributeHits.getValue());
+            first = false;
+        }
+        json.append(converterHits.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"fallthrough\": ");
+        appendCounts(json, fallthrough);
+        json.append("\n}\n");
+        return json.toString();
+    }
+
+    private static void appendCounts(StringBuilder json, Map<String, Integer> counts) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            json.append(first ? "" : ", ").append(quote(count.getKey())).append(": ").append(count.getValue());
+            first = false;
+        }
+        json.append('}');
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                quoted.append('\\').append(character);
+            } else if (character < ' ') {
+                quoted.append(String.format("\\u%04x", (int) character));
+            } else {
+                quoted.append(character);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
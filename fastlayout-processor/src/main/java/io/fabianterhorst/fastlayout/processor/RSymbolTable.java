@@ -0,0 +1,77 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the resource ids of the application, built once from the R.txt symbol list or the generated R.java
+ */
+class RSymbolTable {
+
+    private static final Pattern R_JAVA_FIELD = Pattern.compile("static\\s+(?:final\\s+)?int\\s+(\\w+)\\s*=\\s*(0x[0-9a-fA-F]+)\\s*;");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<Integer, String> names = new HashMap<>();
+
+    private RSymbolTable() {
+    }
+
+    /**
+     * reads a symbol list, every line looks like "int layout activity_main 0x7f040000"
+     *
+     * @param rTxt R.txt file
+     * @return symbol table
+     */
+    static RSymbolTable fromSymbolList(File rTxt) throws IOException {
+        RSymbolTable symbolTable = new RSymbolTable();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(rTxt), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("int ")) {
+                    continue;
+                }
+                String[] symbol = line.split(" ");
+                if (symbol.length == 4 && symbol[3].startsWith("0x")) {
+                    symbolTable.put(symbol[2], symbol[3]);
+                }
+            }
+        }
+        return symbolTable;
+    }
+
+    /**
+     * scans the generated R.java once
+     *
+     * @param rJava content of the R.java file
+     * @return symbol table
+     */
+    static RSymbolTable fromRJava(String rJava) {
+        RSymbolTable symbolTable = new RSymbolTable();
+        Matcher matcher = R_JAVA_FIELD.matcher(rJava);
+        while (matcher.find()) {
+            symbolTable.put(matcher.group(1), matcher.group(2));
+        }
+        return symbolTable;
+    }
+
+    private void put(String name, String hex) {
+        names.put((int) Long.parseLong(hex.substring(2), 16), name);
+    }
+
+    /**
+     * @param id resource id
+     * @return the field name of the resource id or null when the id is unknown
+     */
+    String getName(int id) {
+        return names.get(id);
+    }
+}
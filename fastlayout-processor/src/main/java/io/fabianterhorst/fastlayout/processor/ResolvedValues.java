@@ -0,0 +1,63 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The resource lookups of a generated layout, resolved once per configuration into a nested class
+ *
+ * newInstance(Context) passes them to the new layout, so a copy only creates the views. The values are immutable, a layout and its copies share
+ * them on any thread. Only lookups that depend on the configuration alone are resolved, the new layout can have another theme.
+ */
+public class ResolvedValues {
+
+    static final String CLASS_NAME = "ResolvedValues";
+
+    private final String contextName;
+
+    private final List<String> fields = new ArrayList<>();
+
+    private final List<String> statements = new ArrayList<>();
+
+    /**
+     * @param contextName           parameter of the constructor, the name the lookups use
+     * @param resourcesDeclaration declaration of the resources local the lookups use
+     * @param resourcesName         name of the resources local
+     */
+    ResolvedValues(String contextName, String resourcesDeclaration, String resourcesName) {
+        this.contextName = contextName;
+        statements.add(resourcesDeclaration);
+        statements.add("configuration = new android.content.res.Configuration(" + resourcesName + ".getConfiguration())");
+    }
+
+    void add(String type, String name, String lookup) {
+        fields.add(type + " " + name);
+        statements.add(name + " = " + lookup);
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    public String getClassName() {
+        return CLASS_NAME;
+    }
+
+    public String getContextName() {
+        return contextName;
+    }
+
+    /**
+     * @return type and name of every value
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return statements of the constructor
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+}
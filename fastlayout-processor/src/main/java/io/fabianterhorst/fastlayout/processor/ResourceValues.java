@@ -0,0 +1,256 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Index of the dimen, color, string, integer and bool values of res/values*
+ *
+ * Only values that are defined once in the unqualified values folder can not change with the configuration, references to them are replaced by
+ * the value itself before the layout is converted. Everything else stays a runtime lookup.
+ */
+class ResourceValues {
+
+    private static final String[] TYPES = {"dimen", "color", "string", "integer", "bool"};
+
+    /**
+     * "type/name" of the values that can be inlined
+     */
+    private final Map<String, String> values = new TreeMap<>();
+
+    private String fingerprint;
+
+    private ResourceValues() {
+    }
+
+    /**
+     * @return an index without values, nothing is inlined
+     */
+    static ResourceValues empty() {
+        ResourceValues resourceValues = new ResourceValues();
+        resourceValues.fingerprint = "";
+        return resourceValues;
+    }
+
+    /**
+     * @param resourceFolder res folder of the project
+     * @return the values that can be inlined
+     */
+    static ResourceValues index(File resourceFolder) throws Exception {
+        Map<String, String> unqualified = new HashMap<>();
+        Set<String> variable = new HashSet<>();
+        File[] folders = resourceFolder.listFiles();
+        if (folders != null) {
+            for (File folder : folders) {
+                String folderName = folder.getName();
+                File[] files = folder.listFiles();
+                if (!folder.isDirectory() || files == null) {
+                    continue;
+                }
+                if (folderName.equals("values") || folderName.startsWith("values-")) {
+                    boolean qualified = !folderName.equals("values");
+                    for (File file : files) {
+                        if (file.getName().endsWith(".xml")) {
+                            readValues(file, qualified ? null : unqualified, variable);
+                        }
+                    }
+                } else if (folderName.equals("color") || folderName.startsWith("color-")) {
+                    //color state lists can not be inlined
+                    for (File file : files) {
+                        variable.add("color/" + file.getName().replace(".xml", ""));
+                    }
+                }
+            }
+        }
+        ResourceValues resourceValues = new ResourceValues();
+        for (Map.Entry<String, String> value : unqualified.entrySet()) {
+            String resolved = resolve(value.getKey(), unqualified, variable, new HashSet<String>());
+            if (resolved != null) {
+                resourceValues.values.put(value.getKey(), resolved);
+            }
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        for (Map.Entry<String, String> value : resourceValues.values.entrySet()) {
+            digest.update((value.getKey() + "=" + value.getValue() + "\n").getBytes("UTF-8"));
+        }
+        resourceValues.fingerprint = LayoutSourceCache.toHex(digest.digest());
+        return resourceValues;
+    }
+
+    /**
+     * @param values   values of the unqualified folder or null for a qualified folder
+     * @param variable values that are defined more than once or in a qualified folder
+     */
+    private static void readValues(File file, Map<String, String> values, Set<String> variable) throws Exception {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(LayoutParser.read(file)));
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth != 2) {
+                        continue;
+                    }
+                    String type = reader.getLocalName();
+                    if (type.equals("item")) {
+                        type = reader.getAttributeValue(null, "type");
+                    }
+                    String name = reader.getAttributeValue(null, "name");
+                    if (type == null || name == null || !isSupportedType(type)) {
+                        continue;
+                    }
+                    String key = type + "/" + name;
+                    String value = readSimpleText(reader);
+                    depth--;
+                    if (values == null || value == null || values.containsKey(key)) {
+                        variable.add(key);
+                    } else {
+                        values.put(key, type.equals("string") ? value : value.trim());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * reads the text of the current element
+     *
+     * @return the text or null when the element contains other elements like xliff:g
+     */
+    private static String readSimpleText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        boolean simple = true;
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                simple = false;
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            }
+        }
+        return simple ? text.toString() : null;
+    }
+
+    private static String resolve(String key, Map<String, String> unqualified, Set<String> variable, Set<String> visited) {
+        if (variable.contains(key) || !visited.add(key)) {
+            return null;
+        }
+        String value = unqualified.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.startsWith("@")) {
+            String reference = value.substring(1);
+            return reference.contains(":") ? null : resolve(reference, unqualified, variable, visited);
+        }
+        return isLiteral(key.substring(0, key.indexOf('/')), value) ? value : null;
+    }
+
+    /**
+     * only values the converters turn into the same result as the lookup are inlined
+     */
+    private static boolean isLiteral(String type, String value) {
+        switch (type) {
+            case "dimen":
+                return isDimension(value, "dp") || isDimension(value, "dip") || isDimension(value, "sp");
+            case "color":
+                return value.startsWith("#") && (value.length() == 4 || value.length() == 5 || value.length() == 7 || value.length() == 9);
+            case "integer":
+                return value.matches("-?[0-9]+");
+            case "bool":
+                return value.equals("true") || value.equals("false");
+            case "string":
+                return isSimpleString(value);
+        }
+        return false;
+    }
+
+    private static boolean isDimension(String value, String unit) {
+        return value.endsWith(unit) && value.substring(0, value.length() - unit.length()).matches("-?[0-9]*\\.?[0-9]+");
+    }
+
+    /**
+     * a string that is shown as written, without escapes, quotes or whitespace that aapt would collapse, and that the converters do not read as another literal
+     */
+    private static boolean isSimpleString(String value) {
+        if (value.isEmpty() || value.trim().length() != value.length() || value.contains("  ")) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\'' || character == '\\' || character < ' ' || character > '~') {
+                return false;
+            }
+        }
+        char first = value.charAt(0);
+        if (first == '@' || first == '?' || first == '#' || value.startsWith("R.") || value.startsWith("android.R.")) {
+            return false;
+        }
+        return !value.equals("true") && !value.equals("false") && !Character.isDigit(first) && first != '-' && first != '+' && first != '.';
+    }
+
+    private static boolean isSupportedType(String type) {
+        for (String supportedType : TYPES) {
+            if (supportedType.equals(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * replaces a reference like @dimen/margin by its value when the value can not change with the configuration
+     *
+     * @param attributeName attribute name
+     * @param value         attribute value
+     * @return the inlined value or the attribute value
+     */
+    String inline(String attributeName, String value) {
+        if (value.length() < 2 || value.charAt(0) != '@' || value.indexOf(':') >= 0) {
+            return value;
+        }
+        String inlined = values.get(value.substring(1));
+        if (inlined == null) {
+            return value;
+        }
+        if (value.startsWith("@dimen/") && inlined.endsWith("sp") && !attributeName.equals("android:textSize")) {
+            //sp values are floats, only the text size setter accepts them
+            return value;
+        }
+        return inlined;
+    }
+
+    /**
+     * @return hash of all values that can be inlined, part of the source cache key
+     */
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,79 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A subtree that is the same in more than one place, it is created by a static method of the SharedLayouts class
+ *
+ * The method creates the views of the subtree, sets their attributes and returns them in document order. The layout params of the subtree root
+ * depend on its parent, so they stay in the layouts that use the subtree.
+ */
+public class SharedSubtree {
+
+    private final String methodName;
+
+    private final LayoutEntity root;
+
+    private final List<LayoutEntity> uses = new ArrayList<>();
+
+    private final Set<String> layouts = new TreeSet<>();
+
+    private List<String> declarations;
+
+    SharedSubtree(String methodName, LayoutEntity root) {
+        this.methodName = methodName;
+        this.root = root;
+    }
+
+    void addUse(LayoutEntity use, String className) {
+        uses.add(use);
+        layouts.add(className);
+    }
+
+    void setDeclarations(List<String> declarations) {
+        this.declarations = declarations;
+    }
+
+    public String getClassName() {
+        return SubtreeSharing.CLASS_NAME;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getHostName() {
+        return SubtreeSharing.HOST;
+    }
+
+    /**
+     * @return copy of the subtree with generated ids, the root only has the attributes that are set on the view
+     */
+    public LayoutEntity getRoot() {
+        return root;
+    }
+
+    /**
+     * @return locals of the method
+     */
+    public List<String> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * @return the subtree roots in the layouts that call the method
+     */
+    List<LayoutEntity> getUses() {
+        return uses;
+    }
+
+    /**
+     * @return generated classes that call the method
+     */
+    Set<String> getLayouts() {
+        return layouts;
+    }
+}
@@ -0,0 +1,256 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+/**
+ * Finds subtrees that are the same in more than one place of the layouts of a round and moves their creation into shared static methods
+ *
+ * Subtrees are compared after the conversion: same view classes, same converted attributes and the same children. The layout params of a subtree
+ * root are set by the layout that uses it, so a subtree can be shared between parents of different types. The largest shared subtrees win, a
+ * subtree inside a shared subtree is not shared on its own. A subtree whose method and calls are larger than the views it saves is not shared,
+ * its children can be shared instead. The views of a shared subtree stay in the layout tree, so the layouts keep their fields and getters. Lazy
+ * subtrees and the subtrees that contain them are never shared, their views are created by the inflate methods of their layouts.
+ */
+class SubtreeSharing {
+
+    static final String CLASS_NAME = "SharedLayouts";
+
+    static final String HOST = "host";
+
+    /**
+     * generated class name to its converted root layout
+     */
+    private final Map<String, LayoutEntity> layouts = new TreeMap<>();
+
+    private final LayoutDimensions dimensions = new LayoutDimensions();
+
+    private int lazyViews;
+
+    void add(String className, LayoutEntity rootLayout) {
+        layouts.put(className, rootLayout);
+    }
+
+    /**
+     * marks the shared subtrees in the layouts, the layouts only keep the layout params of a shared subtree root
+     *
+     * @return shared subtrees in the order of the layouts, the locals and dimensions of their methods are already hoisted
+     */
+    List<SharedSubtree> share() {
+        Map<LayoutEntity, String> keys = new IdentityHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (LayoutEntity rootLayout : layouts.values()) {
+            for (LayoutEntity child : rootLayout.getChildren()) {
+                collectKeys(child, keys, counts);
+            }
+        }
+        Set<String> excluded = new HashSet<>();
+        Map<String, List<LayoutEntity>> selected;
+        Map<LayoutEntity, String> classNames = new IdentityHashMap<>();
+        boolean changed;
+        do {
+            selected = new LinkedHashMap<>();
+            for (Map.Entry<String, LayoutEntity> layout : layouts.entrySet()) {
+                for (LayoutEntity child : layout.getValue().getChildren()) {
+                    select(child, layout.getKey(), keys, counts, excluded, selected, classNames);
+                }
+            }
+            //a subtree that is only used once outside of larger shared subtrees or that does not make the generated source smaller is created
+            //inline, its children might be shared instead
+            changed = false;
+            for (Map.Entry<String, List<LayoutEntity>> uses : selected.entrySet()) {
+                if (uses.getValue().size() < 2 || estimateSavedBytes(uses.getValue(), classNames) <= 0) {
+                    excluded.add(uses.getKey());
+                    changed = true;
+                }
+            }
+        } while (changed);
+
+        List<SharedSubtree> subtrees = new ArrayList<>();
+        for (List<LayoutEntity> uses : selected.values()) {
+            SharedSubtree subtree = newSubtree(uses.get(0), subtrees.size());
+            for (LayoutEntity use : uses) {
+                subtree.addUse(use, classNames.get(use));
+                use.setShared(subtree);
+                List<LayoutAttribute> attributes = use.getAttributes();
+                for (int i = attributes.size() - 1; i >= 0; i--) {
+                    if (isSetOnView(attributes.get(i))) {
+                        attributes.remove(i);
+                    }
+                }
+                for (LayoutEntity child : use.getDescendants()) {
+                    child.getAttributes().clear();
+                }
+            }
+            subtrees.add(subtree);
+        }
+
+        List<LayoutEntity> hosts = new ArrayList<>();
+        for (SharedSubtree subtree : subtrees) {
+            LayoutEntity host = newHost(subtree);
+            dimensions.add(host);
+            hosts.add(host);
+        }
+        for (int i = 0; i < subtrees.size(); i++) {
+            hoist(subtrees.get(i), hosts.get(i), dimensions);
+        }
+        return subtrees;
+    }
+
+    /**
+     * @return bytes the subtree would save, measured on a method with its own dp and sp tables before any layout is changed
+     */
+    private static int estimateSavedBytes(List<LayoutEntity> uses, Map<LayoutEntity, String> classNames) {
+        SharedSubtree subtree = newSubtree(uses.get(0), 0);
+        for (LayoutEntity use : uses) {
+            subtree.addUse(use, classNames.get(use));
+        }
+        LayoutDimensions dimensions = new LayoutDimensions();
+        LayoutEntity host = newHost(subtree);
+        dimensions.add(host);
+        hoist(subtree, host, dimensions);
+        return getSavedBytes(subtree);
+    }
+
+    private static SharedSubtree newSubtree(LayoutEntity first, int index) {
+        String name = first.getName().substring(first.getName().lastIndexOf('.') + 1);
+        return new SharedSubtree("create" + name + index, copy(first, HOST, true, new ArrayList<LayoutEntity>()));
+    }
+
+    /**
+     * @return parent of the subtree root in the shared method, the parameter of the method
+     */
+    private static LayoutEntity newHost(SharedSubtree subtree) {
+        LayoutEntity host = new LayoutEntity();
+        host.setId(HOST);
+        host.addChild(subtree.getRoot());
+        return host;
+    }
+
+    private static void hoist(SharedSubtree subtree, LayoutEntity host, LayoutDimensions dimensions) {
+        InitLocals locals = InitLocals.hoist(host, dimensions, HOST + ".getContext()");
+        List<LayoutAttribute> attributes = new ArrayList<>(subtree.getRoot().getAttributes());
+        for (LayoutEntity child : subtree.getRoot().getDescendants()) {
+            attributes.addAll(child.getAttributes());
+        }
+        subtree.setDeclarations(locals.getDeclarations(attributes));
+    }
+
+    /**
+     * @return dp and sp tables of all shared methods
+     */
+    LayoutDimensions getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return estimated characters of generated source the method saves, the views it creates for every use minus the method and its calls
+     */
+    static int getSavedBytes(SharedSubtree subtree) {
+        StringBuilder views = new StringBuilder();
+        DirectLayoutEmitter.appendSharedViews(views, subtree);
+        StringBuilder method = new StringBuilder();
+        DirectLayoutEmitter.appendSharedMethod(method, subtree);
+        int saved = subtree.getUses().size() * views.length() - method.length();
+        for (LayoutEntity use : subtree.getUses()) {
+            StringBuilder call = new StringBuilder();
+            DirectLayoutEmitter.appendSharedCall(call, use, subtree);
+            saved -= call.length();
+        }
+        return saved;
+    }
+
+    /**
+     * @return key of the subtree as a child, it contains everything the generated code of the subtree depends on
+     */
+    private String collectKeys(LayoutEntity layout, Map<LayoutEntity, String> keys, Map<String, Integer> counts) {
+        StringBuilder children = new StringBuilder();
+        for (LayoutEntity child : layout.getChildren()) {
+            children.append(collectKeys(child, keys, counts));
+        }
+        if (layout.getLazy() != null) {
+            //a key that no other view has, so the parents of a lazy view are not shared either
+            return "lazy " + lazyViews++ + "\n";
+        }
+        //a single view is cheaper to create inline than to call a method
+        if (!layout.getChildren().isEmpty()) {
+            String key = appendHeader(new StringBuilder(), layout, true).append(children).append(">\n").toString();
+            keys.put(layout, key);
+            LayoutMetrics.increment(counts, key, 1);
+        }
+        return appendHeader(new StringBuilder(), layout, false).append(children).append(">\n").toString();
+    }
+
+    private static StringBuilder appendHeader(StringBuilder key, LayoutEntity layout, boolean root) {
+        key.append('<').append(layout.getName());
+        if (!root) {
+            key.append(' ').append(layout.getLayoutParamsName());
+        }
+        key.append('\n');
+        for (LayoutAttribute attribute : layout.getAttributes()) {
+            if (!root || isSetOnView(attribute)) {
+                key.append(attribute.getType()).append(attribute.isLast() ? "!" : " ").append(attribute.getValue()).append('\n');
+            }
+        }
+        return key;
+    }
+
+    private static void select(LayoutEntity layout, String className, Map<LayoutEntity, String> keys, Map<String, Integer> counts, Set<String> excluded, Map<String, List<LayoutEntity>> selected, Map<LayoutEntity, String> classNames) {
+        String key = keys.get(layout);
+        if (key != null && counts.get(key) > 1 && !excluded.contains(key)) {
+            List<LayoutEntity> uses = selected.get(key);
+            if (uses == null) {
+                uses = new ArrayList<>();
+                selected.put(key, uses);
+            }
+            uses.add(layout);
+            classNames.put(layout, className);
+            return;
+        }
+        for (LayoutEntity child : layout.getChildren()) {
+            select(child, className, keys, counts, excluded, selected, classNames);
+        }
+    }
+
+    /**
+     * @return the attributes of a subtree root that the shared method sets, the layout params are set by the layout
+     */
+    private static boolean isSetOnView(LayoutAttribute attribute) {
+        return attribute.isLayoutConstructor() || attribute.getType() == LayoutAttribute.Type.LAYOUT;
+    }
+
+    /**
+     * @return copy of the subtree with ids from the view classes, the attributes are copied because the dimensions and locals rewrite them
+     */
+    private static LayoutEntity copy(LayoutEntity layout, String parent, boolean root, List<LayoutEntity> views) {
+        LayoutEntity copy = new LayoutEntity();
+        String name = layout.getName().substring(layout.getName().lastIndexOf('.') + 1);
+        copy.setId(Character.toLowerCase(name.charAt(0)) + name.substring(1) + views.size());
+        views.add(copy);
+        copy.setName(layout.getName());
+        copy.setLayoutParamsName(layout.getLayoutParamsName());
+        copy.setRootLayout(layout.getRootLayout());
+        copy.setParent(parent);
+        copy.setHasChildren(layout.isHasChildren());
+        for (LayoutAttribute attribute : layout.getAttributes()) {
+            if (!root || isSetOnView(attribute)) {
+                LayoutAttribute attributeCopy = new LayoutAttribute(attribute.getType(), attribute.getValue());
+                attributeCopy.setLast(attribute.isLast());
+                copy.addAttribute(attributeCopy);
+            }
+        }
+        for (LayoutEntity child : layout.getChildren()) {
+            copy.addChild(copy(child, copy.getId(), false, views));
+        }
+        return copy;
+    }
+}
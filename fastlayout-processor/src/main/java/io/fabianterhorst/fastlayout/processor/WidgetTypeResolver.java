@@ -0,0 +1,84 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Resolves layout tags to their class hierarchy on the compile classpath
+ *
+ * The hierarchy of every tag is resolved once. The compiler model is not thread safe, so all lookups are synchronized.
+ */
+class WidgetTypeResolver {
+
+    private static final String VIEW = "android.view.View";
+
+    /**
+     * packages that are searched for tags without a package, in the order used by the LayoutInflater
+     */
+    private static final String[] PREFIXES = {"android.widget.", "android.webkit.", "android.app.", "android.view."};
+
+    private final Elements elements;
+
+    private final Types types;
+
+    private final Map<String, List<String>> hierarchies = new HashMap<>();
+
+    WidgetTypeResolver(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+    }
+
+    /**
+     * @param tagName layout tag, a simple framework widget name or a fully qualified class name
+     * @return the class of the tag followed by all of its super classes, java.lang.Object excluded
+     */
+    synchronized List<String> getHierarchy(String tagName) {
+        List<String> hierarchy = hierarchies.get(tagName);
+        if (hierarchy == null) {
+            hierarchy = resolveHierarchy(tagName);
+            hierarchies.put(tagName, hierarchy);
+        }
+        return hierarchy;
+    }
+
+    private List<String> resolveHierarchy(String tagName) {
+        TypeElement typeElement = findTypeElement(tagName);
+        if (typeElement == null) {
+            return Collections.singletonList(VIEW);
+        }
+        List<String> hierarchy = new ArrayList<>();
+        while (typeElement != null && !typeElement.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(typeElement.getQualifiedName().toString());
+            TypeMirror superclass = typeElement.getSuperclass();
+            if (superclass.getKind() != TypeKind.DECLARED) {
+                break;
+            }
+            Element superElement = types.asElement(superclass);
+            typeElement = superElement instanceof TypeElement ? (TypeElement) superElement : null;
+        }
+        return Collections.unmodifiableList(hierarchy);
+    }
+
+    private TypeElement findTypeElement(String tagName) {
+        if (tagName.contains(".")) {
+            return elements.getTypeElement(tagName);
+        }
+        for (String prefix : PREFIXES) {
+            TypeElement typeElement = elements.getTypeElement(prefix + tagName);
+            if (typeElement != null) {
+                return typeElement;
+            }
+        }
+        return null;
+    }
+}
@@ -1,24 +1,61 @@
 package ${package};
 
 import android.content.Context;
+<#if viewHolder??>
+import android.support.v7.widget.RecyclerView;
+</#if>
 import android.util.AttributeSet;
 
 import android.view.*;
 import android.widget.*;
 import android.util.TypedValue;
 
+<#if dimensions.dp?has_content || dimensions.sp?has_content>
+import io.fabianterhorst.fastlayout.DimensionTable;
+</#if>
 import io.fabianterhorst.fastlayout.ILayout;
 import io.fabianterhorst.fastlayout.LayoutUtils;
+<#if lazyMethods?has_content>
+import io.fabianterhorst.fastlayout.LazyView;
+</#if>
 
 import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
 import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
 
-public class ${keyWrapperClassName} extends ${rootLayout.name} implements ILayout, Cloneable {
+public class ${keyWrapperClassName} extends ${rootLayout.name} implements ILayout<#if lazyMethods?has_content>, LazyView.Factory</#if> {
 
-    <#list rootLayout.children as child>
+    <#if dimensions.dp?has_content || dimensions.sp?has_content>
+    private static final DimensionTable DIMENSIONS = new DimensionTable(new float[]{<#list dimensions.dp as dp>${dp}<#if dp_has_next>, </#if></#list>}, new float[]{<#list dimensions.sp as sp>${sp}<#if sp_has_next>, </#if></#list>});
+
+    </#if>
+    <#if bindings?? && bindings.remembering>
+    private static final Object UNBOUND = new Object();
+
+    </#if>
+    <#if !values.empty>
+    private ${values.className} mResolvedValues;
+
+    </#if>
+    <#list rootLayout.descendants as child>
     private ${child.name} ${child.id};
 
+    <#if child.lazyRoot>
+    private LazyView ${child.lazy.stubName};
+
+    </#if>
     </#list>
+    <#if bindings??>
+    <#list bindings.views as view>
+    <#if view.text>
+    private Object ${view.textField} = UNBOUND;
+
+    </#if>
+    <#if view.image>
+    private Object ${view.imageField} = UNBOUND;
+
+    </#if>
+    </#list>
+    </#if>
     public ${keyWrapperClassName}(Context context) {
         super(<#list rootLayout.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value?replace("getContext()", "context")}<#if !attribute.last>,</#if></#if></#list>);
         init();
@@ -38,8 +75,19 @@ public class ${keyWrapperClassName} extends ${rootLayout.name} implements ILayou
         super(<#list rootLayout.attributes as attribute><#if attribute.type == "LAYOUT_CONSTRUCTOR_1">${attribute.value?replace("getContext()", "context")}</#if></#list>, attrs<#list rootLayout.attributes as attribute><#if attribute.type == "LAYOUT_CONSTRUCTOR_3">, ${attribute.value}</#if></#list>, defStyleRes);
         init();
     }
+    <#if !values.empty>
+
+    private ${keyWrapperClassName}(Context context, ${values.className} resolvedValues) {
+        super(<#list rootLayout.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value?replace("getContext()", "context")}<#if !attribute.last>,</#if></#if></#list>);
+        mResolvedValues = resolvedValues;
+        init();
+    }
+    </#if>
 
     private void init() {
+        <#list init.declarations as declaration>
+        ${declaration};
+        </#list>
         ${rootLayout.layoutParamsName} ${rootLayout.id}LayoutParams = new ${rootLayout.layoutParamsName}(<#list rootLayout.attributes as attribute><#if attribute.isParamsConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
         <#list rootLayout.attributes as attribute>
         <#if attribute.type == "PARAM" || attribute.type == "LAYOUT">
@@ -48,32 +96,199 @@ public class ${keyWrapperClassName} extends ${rootLayout.name} implements ILayou
         </#list>
         this.setLayoutParams(${rootLayout.id}LayoutParams);
 
-        <#assign parent = "this">
-        <#list rootLayout.children as child>
-        ${child.id} = new ${child.name}(<#list child.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
-        ${child.layoutParamsName} ${child.id}LayoutParams = new ${child.layoutParamsName}(<#list child.attributes as attribute><#if attribute.isParamsConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
-        <#list child.attributes as attribute>
-        <#if attribute.type == "PARAM" || attribute.type == "LAYOUT">
-        <#if attribute.type == "PARAM">${child.id}LayoutParams<#elseif attribute.type == "LAYOUT">${child.id}</#if>.${attribute.value};
+        <@createViews init/>
+        <#list methods as method>
+        ${method.name}();
+        </#list>
+    }
+
+    <#list methods as method>
+    private void ${method.name}() {
+        <#list method.declarations as declaration>
+        ${declaration};
+        </#list>
+        <@createViews method/>
+    }
+
+    </#list>
+    <#list lazyMethods as method>
+    private void ${method.name}() {
+        <#list method.declarations as declaration>
+        ${declaration};
+        </#list>
+        <#if method.lazy??>
+        <#assign root = method.lazy.root>
+        ${root.id} = new ${root.name}(<#list root.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        <#list root.attributes as attribute>
+        <#if attribute.type == "LAYOUT">
+        ${root.id}.${attribute.value};
         </#if>
         </#list>
-        ${child.parent}.addView(${child.id}, ${child.id}LayoutParams);
 
+        </#if>
+        <@createViews method/>
+        <#list method.calls as call>
+        ${call.name}();
         </#list>
+        <#if method.lazy??>
+        ${method.lazy.stubName}.replaceWith(${root.id});
+        </#if>
     }
 
-    <#list rootLayout.children as child>
+    </#list>
+    <#list rootLayout.descendants as child>
     public ${child.name} get${child.id?capitalize}() {
+        <#if child.lazy??>
+        if (${child.id} == null) {
+            ${child.lazy.stubName}.inflate();
+        }
+        </#if>
         return ${child.id};
     }
 
     </#list>
+    <#if bindings??>
+    <#list bindings.views as view>
+    public void bind${view.methodName}Visibility(int visibility) {
+        if (${view.id}.getVisibility() != visibility) {
+            ${view.id}.setVisibility(visibility);
+        }
+    }
+
+    <#if view.text>
+    public void bind${view.methodName}Text(CharSequence text) {
+        if (${view.textField} == UNBOUND || text instanceof android.text.Spanned || !android.text.TextUtils.equals(text, (String) ${view.textField})) {
+            ${view.textField} = text instanceof android.text.Spanned ? UNBOUND : text != null ? text.toString() : null;
+            ${view.id}.setText(text);
+        }
+    }
+
+    </#if>
+    <#if view.image>
+    public void bind${view.methodName}ImageDrawable(android.graphics.drawable.Drawable drawable) {
+        if (drawable != ${view.imageField}) {
+            ${view.imageField} = drawable;
+            ${view.id}.setImageDrawable(drawable);
+        }
+    }
+
+    public void bind${view.methodName}ImageResource(int resId) {
+        if (!(${view.imageField} instanceof Integer) || (Integer) ${view.imageField} != resId) {
+            ${view.imageField} = resId;
+            ${view.id}.setImageResource(resId);
+        }
+    }
+
+    </#if>
+    </#list>
+    </#if>
+    <#if lazyMethods?has_content>
     @Override
-    public ILayout clone() {
-        try {
-            return (${keyWrapperClassName}) super.clone();
-        } catch (CloneNotSupportedException ignore) {
-            return new ${keyWrapperClassName}(getContext());
+    public void inflate(LazyView view, int index) {
+        switch (index) {
+            <#list lazyMethods as method>
+            <#if method.lazy??>
+            case ${method.lazy.index?c}:
+                ${method.name}();
+                break;
+            </#if>
+            </#list>
         }
     }
+
+    </#if>
+    <#if !values.empty>
+    private ${values.className} resolveValues(Context context) {
+        if (mResolvedValues == null || !mResolvedValues.matches(context)) {
+            mResolvedValues = new ${values.className}(context);
+        }
+        return mResolvedValues;
+    }
+
+    </#if>
+    @Override
+    public ILayout newInstance(Context context) {
+        return new ${keyWrapperClassName}(context<#if !values.empty>, mResolvedValues</#if>);
+    }
+    <#if !values.empty>
+
+    private static final class ${values.className} {
+
+        final android.content.res.Configuration configuration;
+
+        <#list values.fields as field>
+        final ${field};
+
+        </#list>
+        ${values.className}(Context ${values.contextName}) {
+            <#list values.statements as statement>
+            ${statement};
+            </#list>
+        }
+
+        boolean matches(Context context) {
+            return configuration.equals(context.getResources().getConfiguration());
+        }
+    }
+    </#if>
+    <#if viewHolder??>
+
+    public static class ${viewHolder.className} extends RecyclerView.ViewHolder {
+
+        <#list viewHolder.views as view>
+        public final ${view.name} ${view.id};
+
+        </#list>
+        public ${viewHolder.className}(ViewGroup parent) {
+            this(new ${keyWrapperClassName}(parent.getContext()));
+        }
+
+        public ${viewHolder.className}(${keyWrapperClassName} layout) {
+            super(layout);
+            <#list viewHolder.views as view>
+            this.${view.id} = layout.${view.id};
+            </#list>
+        }
+
+        public ${keyWrapperClassName} getLayout() {
+            return (${keyWrapperClassName}) itemView;
+        }
+    }
+    </#if>
 }
+<#macro createViews method>
+        <#list method.layouts as child>
+        <#if child.lazyRoot>
+        ${child.lazy.stubName} = new LazyView(getContext(), this, ${child.lazy.index?c});
+        <#if child.lazy.stubId??>
+        ${child.lazy.stubName}.setId(${child.lazy.stubId});
+        </#if>
+        ${child.layoutParamsName} ${child.id}LayoutParams = new ${child.layoutParamsName}(<#list child.attributes as attribute><#if attribute.isParamsConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        <#list child.attributes as attribute>
+        <#if attribute.type == "PARAM">
+        ${child.id}LayoutParams.${attribute.value};
+        </#if>
+        </#list>
+        ${child.parent}.addView(${child.lazy.stubName}, ${child.id}LayoutParams);
+
+        <#else>
+        <#if child.shared??>
+        View[] ${child.id}Views = ${child.shared.className}.${child.shared.methodName}(this);
+        ${child.id} = (${child.name}) ${child.id}Views[0];
+        <#list child.descendants as view>
+        ${view.id} = (${view.name}) ${child.id}Views[${(view_index + 1)?c}];
+        </#list>
+        <#else>
+        ${child.id} = new ${child.name}(<#list child.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        </#if>
+        ${child.layoutParamsName} ${child.id}LayoutParams = new ${child.layoutParamsName}(<#list child.attributes as attribute><#if attribute.isParamsConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        <#list child.attributes as attribute>
+        <#if attribute.type == "PARAM" || attribute.type == "LAYOUT">
+        <#if attribute.type == "PARAM">${child.id}LayoutParams<#elseif attribute.type == "LAYOUT">${child.id}</#if>.${attribute.value};
+        </#if>
+        </#list>
+        ${child.parent}.addView(${child.id}, ${child.id}LayoutParams);
+
+        </#if>
+        </#list>
+</#macro>
@@ -1,55 +1,82 @@
 package ${package};
 
 import android.content.Context;
+<#if variants?has_content>
+import android.content.res.Configuration;
+</#if>
+import android.support.annotation.LayoutRes;
 import android.support.annotation.StringDef;
 import android.support.annotation.NonNull;
 import android.view.View;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.HashMap;
 
+import io.fabianterhorst.fastlayout.AbstractLayoutCache;
 import io.fabianterhorst.fastlayout.ILayout;
+import io.fabianterhorst.fastlayout.LayoutFactory;
 
-public class LayoutCache {
-
-    private static LayoutCache mInstance;
-
-    private final HashMap<String, ILayout> mLayouts;
+public class LayoutCache extends AbstractLayoutCache {
 
     <#list layouts?keys as key>
     public static final String ${key} = "${layouts[key].name}";
 
     </#list>
+    private static final String[] NAMES = {<#list layouts?keys as key>${key}<#if key_has_next>, </#if></#list>};
+
+    private static final LayoutFactory[] FACTORIES = {
+        <#list layouts?keys as key>
+        new LayoutFactory() {
+            @Override
+            public ILayout create(Context context) {
+                return new ${layouts[key].name}(context);
+            }
+        }<#if key_has_next>,</#if>
+        </#list>
+    };
+
+    private static final int[] LAYOUT_IDS = {<#list layouts?keys as key>${layouts[key].layoutId}<#if key_has_next>, </#if></#list>};
+
     @StringDef({<#list layouts?keys as key>${key},</#list>})
     @Retention(RetentionPolicy.SOURCE)
     public @interface LayoutName {
     }
 
+    private static final class InstanceHolder {
+        static final LayoutCache INSTANCE = new LayoutCache();
+    }
+
     public LayoutCache() {
-        mLayouts = new HashMap<>();
+        super(NAMES, FACTORIES, LAYOUT_IDS, ${variants?has_content?c});
     }
 
     public static LayoutCache getInstance() {
-        if (mInstance == null) {
-            mInstance = new LayoutCache();
-        }
-        return mInstance;
+        return InstanceHolder.INSTANCE;
     }
 
     public <T extends View> T getLayout(@NonNull Context context, @LayoutName String name) {
-        if (mLayouts.containsKey(name)) {
-            return (T) mLayouts.get(name).clone();
-        }
-        ILayout layout = null;
+        return (T) obtainLayout(context, indexOf(name));
+    }
+
+    public <T extends View> T getLayout(@NonNull Context context, @LayoutRes int layoutId) {
+        return (T) obtainLayout(context, indexOf(layoutId));
+    }
+    <#if variants?has_content>
+
+    @Override
+    protected String selectVariant(Configuration configuration, String name) {
         switch (name) {
-        <#list layouts?keys as key>
+        <#list variants?keys as key>
             case ${key}:
-                layout = new ${layouts[key].name}(context);
+                <#list variants[key] as variant>
+                if (${layouts[variant].condition}) {
+                    return ${variant};
+                }
+                </#list>
                 break;
         </#list>
         }
-        mLayouts.put(name, layout.clone());
-        return (T) layout;
+        return name;
     }
+    </#if>
 }
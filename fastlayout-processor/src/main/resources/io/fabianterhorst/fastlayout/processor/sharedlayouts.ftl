@@ -0,0 +1,53 @@
+package ${package};
+
+import android.content.Context;
+
+import android.view.*;
+import android.widget.*;
+import android.util.TypedValue;
+
+<#if dimensions.dp?has_content || dimensions.sp?has_content>
+import io.fabianterhorst.fastlayout.DimensionTable;
+</#if>
+import io.fabianterhorst.fastlayout.LayoutUtils;
+
+import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
+import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
+
+final class ${className} {
+
+    <#if dimensions.dp?has_content || dimensions.sp?has_content>
+    private static final DimensionTable DIMENSIONS = new DimensionTable(new float[]{<#list dimensions.dp as dp>${dp}<#if dp_has_next>, </#if></#list>}, new float[]{<#list dimensions.sp as sp>${sp}<#if sp_has_next>, </#if></#list>});
+
+    </#if>
+    private ${className}() {
+    }
+    <#list subtrees as subtree>
+    <#assign root = subtree.root>
+
+    static View[] ${subtree.methodName}(View ${subtree.hostName}) {
+        <#list subtree.declarations as declaration>
+        ${declaration};
+        </#list>
+        ${root.name} ${root.id} = new ${root.name}(<#list root.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        <#list root.attributes as attribute>
+        <#if attribute.type == "LAYOUT">
+        ${root.id}.${attribute.value};
+        </#if>
+        </#list>
+
+        <#list root.descendants as child>
+        ${child.name} ${child.id} = new ${child.name}(<#list child.attributes as attribute><#if attribute.isLayoutConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        ${child.layoutParamsName} ${child.id}LayoutParams = new ${child.layoutParamsName}(<#list child.attributes as attribute><#if attribute.isParamsConstructor()>${attribute.value}<#if !attribute.last>,</#if></#if></#list>);
+        <#list child.attributes as attribute>
+        <#if attribute.type == "PARAM" || attribute.type == "LAYOUT">
+        <#if attribute.type == "PARAM">${child.id}LayoutParams<#elseif attribute.type == "LAYOUT">${child.id}</#if>.${attribute.value};
+        </#if>
+        </#list>
+        ${child.parent}.addView(${child.id}, ${child.id}LayoutParams);
+
+        </#list>
+        return new View[]{${root.id}<#list root.descendants as child>, ${child.id}</#list>};
+    }
+    </#list>
+}
@@ -0,0 +1,160 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Removes wrappers from parsed layouts and checks the attributes the child ends up with
+ */
+public class LayoutOptimizerTest {
+
+    @Test
+    public void sumsMarginsAndPadding() throws Exception {
+        LayoutEntity child = optimizeSingle(
+                "<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_margin=\"2dp\" android:paddingLeft=\"4dp\" android:paddingTop=\"1.5dp\">"
+                        + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_marginLeft=\"1dp\"/>"
+                        + "</FrameLayout>");
+        assertEquals("text", child.getId());
+        assertEquals("7dp", child.getXmlAttribute("android:layout_marginLeft"));
+        assertEquals("3.5dp", child.getXmlAttribute("android:layout_marginTop"));
+        assertEquals("2dp", child.getXmlAttribute("android:layout_marginRight"));
+        assertEquals("2dp", child.getXmlAttribute("android:layout_marginBottom"));
+        assertNull(child.getXmlAttribute("android:layout_margin"));
+    }
+
+    @Test
+    public void removesZeroMargins() throws Exception {
+        LayoutEntity child = optimizeSingle(
+                "<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:padding=\"0dp\">"
+                        + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_margin=\"0\"/>"
+                        + "</FrameLayout>");
+        assertEquals("text", child.getId());
+        assertTrue(child.getXmlAttributes().keySet().toString(), !child.getXmlAttributes().keySet().toString().contains("margin"));
+    }
+
+    @Test
+    public void removesWrapperOfSameSize() throws Exception {
+        assertRemoved("match_parent", "match_parent", "match_parent", "match_parent");
+        assertRemoved("wrap_content", "wrap_content", "wrap_content", "wrap_content");
+        assertRemoved("match_parent", "wrap_content", "match_parent", "10dp");
+        assertRemoved("fill_parent", "wrap_content", "match_parent", "wrap_content");
+    }
+
+    @Test
+    public void keepsWrapperOfOtherSize() throws Exception {
+        assertKept("wrap_content", "wrap_content", "match_parent", "wrap_content");
+        assertKept("match_parent", "wrap_content", "wrap_content", "wrap_content");
+        assertKept("10dp", "wrap_content", "10dp", "wrap_content");
+    }
+
+    @Test
+    public void movesWrapperParamsToChild() throws Exception {
+        LayoutEntity child = optimizeSingle(
+                "<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_gravity=\"center\">"
+                        + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_gravity=\"bottom\"/>"
+                        + "</FrameLayout>");
+        assertEquals("text", child.getId());
+        assertEquals("center", child.getXmlAttribute("android:layout_gravity"));
+        assertEquals("LinearLayout", child.getRootLayout());
+        assertEquals("this", child.getParent());
+    }
+
+    @Test
+    public void keepsWrapperWithWeight() throws Exception {
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_weight=\"1\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_gravity=\"center\"/>"
+                + "</FrameLayout>");
+    }
+
+    @Test
+    public void removesWrapperWithZeroWeight() throws Exception {
+        LayoutEntity child = optimizeSingle(
+                "<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_weight=\"0\">"
+                        + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                        + "</FrameLayout>");
+        assertEquals("text", child.getId());
+    }
+
+    @Test
+    public void keepsWrapperWithFillingGravity() throws Exception {
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_gravity=\"fill_horizontal\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                + "</FrameLayout>");
+    }
+
+    @Test
+    public void keepsWrapperOfChildWithOtherLayoutParams() throws Exception {
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" app:layout_behavior=\"behavior\"/>"
+                + "</FrameLayout>");
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:layout_weight=\"1\"/>"
+                + "</FrameLayout>");
+    }
+
+    @Test
+    public void keepsWrapperWithOtherAttributes() throws Exception {
+        assertKept("<FrameLayout android:id=\"@+id/wrapper\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                + "</FrameLayout>");
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:background=\"#fff\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                + "</FrameLayout>");
+        assertKept("<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:padding=\"@dimen/padding\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                + "</FrameLayout>");
+    }
+
+    @Test
+    public void removesNestedWrappers() throws Exception {
+        LayoutEntity child = optimizeSingle(
+                "<LinearLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:orientation=\"vertical\" android:paddingLeft=\"1dp\">"
+                        + "<FrameLayout android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\" android:paddingLeft=\"2dp\">"
+                        + "<TextView android:id=\"@+id/text\" android:layout_width=\"wrap_content\" android:layout_height=\"wrap_content\"/>"
+                        + "</FrameLayout>"
+                        + "</LinearLayout>");
+        assertEquals("text", child.getId());
+        assertEquals("3dp", child.getXmlAttribute("android:layout_marginLeft"));
+    }
+
+    private static void assertRemoved(String wrapperWidth, String wrapperHeight, String childWidth, String childHeight) throws Exception {
+        assertEquals("text", optimizeSingle(wrap(wrapperWidth, wrapperHeight, childWidth, childHeight)).getId());
+    }
+
+    private static void assertKept(String wrapperWidth, String wrapperHeight, String childWidth, String childHeight) throws Exception {
+        assertKept(wrap(wrapperWidth, wrapperHeight, childWidth, childHeight));
+    }
+
+    private static void assertKept(String content) throws Exception {
+        LayoutEntity wrapper = optimizeSingle(content);
+        assertEquals("FrameLayout", wrapper.getName());
+        assertEquals("text", wrapper.getChildren().get(0).getId());
+    }
+
+    private static String wrap(String wrapperWidth, String wrapperHeight, String childWidth, String childHeight) {
+        return "<FrameLayout android:layout_width=\"" + wrapperWidth + "\" android:layout_height=\"" + wrapperHeight + "\">"
+                + "<TextView android:id=\"@+id/text\" android:layout_width=\"" + childWidth + "\" android:layout_height=\"" + childHeight + "\"/>"
+                + "</FrameLayout>";
+    }
+
+    /**
+     * @param content single child of a LinearLayout root
+     * @return the child of the root after the optimization
+     */
+    private static LayoutEntity optimizeSingle(String content) throws Exception {
+        String layout = "<LinearLayout xmlns:android=\"http://schemas.android.com/apk/res/android\" xmlns:app=\"http://schemas.android.com/apk/res-auto\""
+                + " android:layout_width=\"match_parent\" android:layout_height=\"match_parent\">" + content + "</LinearLayout>";
+        LayoutEntity rootLayout = new LayoutParser().parse(new File("layout.xml"), layout.getBytes(Charset.forName("UTF-8")));
+        new LayoutOptimizer().optimize(rootLayout);
+        List<LayoutEntity> children = rootLayout.getChildren();
+        assertEquals(1, children.size());
+        return children.get(0);
+    }
+}
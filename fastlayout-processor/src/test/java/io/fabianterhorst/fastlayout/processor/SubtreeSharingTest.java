@@ -0,0 +1,91 @@
+package io.fabianterhorst.fastlayout.processor;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import io.fabianterhorst.fastlayout.converters.LayoutAttribute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Shares converted subtrees between layouts and checks that only subtrees that make the generated source smaller are shared
+ */
+public class SubtreeSharingTest {
+
+    @Test
+    public void sharesLargeSubtree() {
+        SubtreeSharing sharing = new SubtreeSharing();
+        LayoutEntity first = layout("first", header("first", 4));
+        LayoutEntity second = layout("second", header("second", 4));
+        sharing.add("FirstLayout", first);
+        sharing.add("SecondLayout", second);
+        List<SharedSubtree> subtrees = sharing.share();
+        assertEquals(1, subtrees.size());
+        assertEquals(2, subtrees.get(0).getUses().size());
+        assertTrue(SubtreeSharing.getSavedBytes(subtrees.get(0)) > 0);
+        assertEquals(subtrees.get(0), first.getChildren().get(0).getShared());
+    }
+
+    @Test
+    public void keepsSmallSubtreeInline() {
+        SubtreeSharing sharing = new SubtreeSharing();
+        LayoutEntity first = layout("first", header("first", 1));
+        LayoutEntity second = layout("second", header("second", 1));
+        sharing.add("FirstLayout", first);
+        sharing.add("SecondLayout", second);
+        assertTrue(sharing.share().isEmpty());
+        assertNull(first.getChildren().get(0).getShared());
+        assertEquals(5, first.getChildren().get(0).getChildren().get(0).getAttributes().size());
+    }
+
+    private static LayoutEntity layout(String id, LayoutEntity child) {
+        LayoutEntity rootLayout = new LayoutEntity();
+        rootLayout.setId(id);
+        rootLayout.setName("LinearLayout");
+        rootLayout.setLayoutParamsName("LinearLayout.LayoutParams");
+        rootLayout.setHasChildren(true);
+        attach(rootLayout, child);
+        return rootLayout;
+    }
+
+    /**
+     * @return a LinearLayout with text views that have two attributes each
+     */
+    private static LayoutEntity header(String id, int texts) {
+        LayoutEntity header = view(id, "LinearLayout", "setOrientation(LinearLayout.VERTICAL)");
+        for (int i = 0; i < texts; i++) {
+            attach(header, view(id + "Text" + i, "TextView", "setText(\"Title " + i + "\")", "setTextSize(18)"));
+        }
+        return header;
+    }
+
+    private static LayoutEntity view(String id, String name, String... setters) {
+        LayoutEntity view = new LayoutEntity();
+        view.setId(id);
+        view.setName(name);
+        view.addAttribute(attribute(LayoutAttribute.Type.LAYOUT_CONSTRUCTOR_1, "getContext()", true));
+        view.addAttribute(attribute(LayoutAttribute.Type.PARAM_CONSTRUCTOR_1, "MATCH_PARENT", false));
+        view.addAttribute(attribute(LayoutAttribute.Type.PARAM_CONSTRUCTOR_2, "WRAP_CONTENT", true));
+        for (String setter : setters) {
+            view.addAttribute(new LayoutAttribute(setter));
+        }
+        return view;
+    }
+
+    private static void attach(LayoutEntity parent, LayoutEntity child) {
+        parent.setHasChildren(true);
+        child.setParent(parent.getId());
+        child.setRootLayout(parent.getName());
+        child.setLayoutParamsName(parent.getName() + ".LayoutParams");
+        parent.addChild(child);
+    }
+
+    private static LayoutAttribute attribute(LayoutAttribute.Type type, String value, boolean last) {
+        LayoutAttribute attribute = new LayoutAttribute(type, value);
+        attribute.setLast(last);
+        return attribute;
+    }
+}
@@ -0,0 +1,454 @@
+package io.fabianterhorst.fastlayout;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.view.View;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Creates and reuses the generated layouts, the generated LayoutCache knows the layout classes
+ *
+ * Every layout class has a dense index, the factories, the reused instances and the selected variants are arrays by that index. A layout is
+ * found by its R.layout id through the entry index of the id, which is dense for the layouts of an application. The cache can be used from
+ * any thread, only the callbacks of asynchronous requests are called on the main thread.
+ *
+ * Layouts that are recycled or prewarmed wait in a bounded pool until they are requested, see {@link #setCapacity(String, int)} and
+ * {@link #setMaxSize(int)}. A pooled layout is only returned for the context it was built with, see {@link #evictAll(Context)}. The cache
+ * does not keep layouts that are in use, it only remembers the last built layout of every class weakly to build the next one with
+ * {@link ILayout#newInstance(Context)}, which skips the resource lookups.
+ */
+public abstract class AbstractLayoutCache {
+
+    private static final int ENTRY_MASK = 0xffff;
+
+    public static final int DEFAULT_CAPACITY = 4;
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private final String[] names;
+
+    private final LayoutFactory[] factories;
+
+    /**
+     * R.layout id of every layout, 0 for variants
+     */
+    private final int[] layoutIds;
+
+    /**
+     * entry index of an id to the index of its layout, -1 for ids without a layout
+     */
+    private final int[] indexOfEntry;
+
+    private final HashMap<String, Integer> indexOfName = new HashMap<>();
+
+    private final boolean hasVariants;
+
+    /**
+     * index of every layout class that was built, to recycle a layout without its name
+     */
+    private final ConcurrentHashMap<Class<?>, Integer> indexOfClass = new ConcurrentHashMap<>();
+
+    private final LayoutPool pool;
+
+    private final AtomicReferenceArray<WeakReference<ILayout>> prototypes;
+
+    private final AtomicLongArray hits;
+
+    private final AtomicLongArray misses;
+
+    private final AtomicLongArray builds;
+
+    private final AtomicLongArray buildTimeNanos;
+
+    private volatile SelectedVariants selectedVariants;
+
+    /**
+     * @param names       class names of the layouts
+     * @param factories   factory of every layout
+     * @param layoutIds   R.layout id of every layout, 0 for a variant
+     * @param hasVariants true when {@link #selectVariant(Configuration, String)} selects variants
+     */
+    protected AbstractLayoutCache(String[] names, LayoutFactory[] factories, int[] layoutIds, boolean hasVariants) {
+        this.names = names;
+        this.factories = factories;
+        this.layoutIds = layoutIds;
+        this.hasVariants = hasVariants;
+        int maxEntry = -1;
+        for (int i = 0; i < names.length; i++) {
+            indexOfName.put(names[i], i);
+            if (layoutIds[i] != 0) {
+                maxEntry = Math.max(maxEntry, layoutIds[i] & ENTRY_MASK);
+            }
+        }
+        indexOfEntry = new int[maxEntry + 1];
+        for (int i = 0; i < indexOfEntry.length; i++) {
+            indexOfEntry[i] = -1;
+        }
+        for (int i = 0; i < layoutIds.length; i++) {
+            if (layoutIds[i] != 0 && indexOfEntry[layoutIds[i] & ENTRY_MASK] < 0) {
+                indexOfEntry[layoutIds[i] & ENTRY_MASK] = i;
+            }
+        }
+        pool = new LayoutPool(names.length, DEFAULT_CAPACITY, DEFAULT_MAX_SIZE);
+        prototypes = new AtomicReferenceArray<>(names.length);
+        hits = new AtomicLongArray(names.length);
+        misses = new AtomicLongArray(names.length);
+        builds = new AtomicLongArray(names.length);
+        buildTimeNanos = new AtomicLongArray(names.length);
+    }
+
+    /**
+     * A configuration of the same instance only selects the variants again when the orientation, screen layout, ui mode or screen size changed,
+     * the qualifiers of the generated variants do not read other fields.
+     *
+     * @return the variant of the layout that matches the configuration, called once per layout and configuration
+     */
+    protected String selectVariant(Configuration configuration, String name) {
+        return name;
+    }
+
+    /**
+     * @return index of the layout class
+     * @throws IllegalArgumentException when the layout was not generated
+     */
+    protected final int indexOf(String name) {
+        Integer index = indexOfName.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("unknown layout " + name);
+        }
+        return index;
+    }
+
+    /**
+     * @return index of the layout class of the layout without qualifiers
+     * @throws IllegalArgumentException when the layout was not generated
+     */
+    protected final int indexOf(int layoutId) {
+        int entry = layoutId & ENTRY_MASK;
+        int index = entry < indexOfEntry.length ? indexOfEntry[entry] : -1;
+        if (index >= 0 && layoutIds[index] == layoutId) {
+            return index;
+        }
+        //ids of more than one package can share an entry index
+        for (int i = 0; i < layoutIds.length; i++) {
+            if (layoutIds[i] == layoutId) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown layout id 0x" + Integer.toHexString(layoutId));
+    }
+
+    protected final ILayout obtainLayout(Context context, int index) {
+        index = getVariant(context, index);
+        ILayout layout = pool.poll(index, context);
+        if (layout != null) {
+            hits.incrementAndGet(index);
+            return layout;
+        }
+        misses.incrementAndGet(index);
+        return createLayout(context, index);
+    }
+
+    ILayout createLayout(Context context, int index) {
+        long start = System.nanoTime();
+        WeakReference<ILayout> reference = prototypes.get(index);
+        ILayout prototype = reference != null ? reference.get() : null;
+        ILayout layout = prototype != null ? prototype.newInstance(context) : factories[index].create(context);
+        buildTimeNanos.addAndGet(index, System.nanoTime() - start);
+        if (prototype == null) {
+            prototypes.set(index, new WeakReference<>(layout));
+        }
+        builds.incrementAndGet(index);
+        indexOfClass.putIfAbsent(layout.getClass(), index);
+        return layout;
+    }
+
+    /**
+     * returns a layout that is not used anymore to the pool, the next getLayout call of the same layout returns it
+     *
+     * @param layout layout of this cache that was removed from its parent
+     * @return false when the pool of the layout is full or the layout was not built by this cache
+     */
+    public boolean recycle(View layout) {
+        if (layout.getParent() != null) {
+            throw new IllegalArgumentException("remove the layout from its parent before recycling it");
+        }
+        Integer index = indexOfClass.get(layout.getClass());
+        return index != null && pool.offer(index, (ILayout) layout);
+    }
+
+    /**
+     * @param capacity idle instances the pool keeps of the layout, variants have a capacity of their own
+     */
+    public void setCapacity(String name, int capacity) {
+        pool.setCapacity(indexOf(name), capacity);
+    }
+
+    public void setCapacity(int layoutId, int capacity) {
+        pool.setCapacity(indexOf(layoutId), capacity);
+    }
+
+    /**
+     * @param maxSize idle instances the pool keeps of all layouts, the least recently used layouts are evicted first
+     */
+    public void setMaxSize(int maxSize) {
+        pool.setMaxSize(maxSize);
+    }
+
+    /**
+     * releases idle instances depending on the level of {@link ComponentCallbacks2#onTrimMemory(int)}, half of the pool while the app is
+     * running low or in the background and all of it when the process is likely to be killed
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            pool.trimToSize(pool.getMaxSize() / 2);
+        }
+    }
+
+    public void evictAll() {
+        pool.trimToSize(0);
+    }
+
+    /**
+     * releases the idle instances that were built with the context, call it when the activity of the context is destroyed unless
+     * {@link #registerComponentCallbacks(Context)} does it
+     */
+    public void evictAll(Context context) {
+        pool.evictAll(context);
+    }
+
+    /**
+     * trims the pool when the system asks for memory, evicts it when the configuration changes, because the idle instances were built for
+     * the old one, and evicts the instances of an activity when it is destroyed
+     */
+    public void registerComponentCallbacks(Context context) {
+        if (Build.VERSION.SDK_INT >= 14) {
+            Context applicationContext = context.getApplicationContext();
+            applicationContext.registerComponentCallbacks(new TrimMemoryCallbacks(this));
+            if (applicationContext instanceof Application) {
+                ((Application) applicationContext).registerActivityLifecycleCallbacks(new DestroyedActivityCallbacks(this));
+            }
+        }
+    }
+
+    public LayoutCacheStats getStats() {
+        long totalHits = 0;
+        long totalMisses = 0;
+        long totalBuilds = 0;
+        long totalBuildTimeNanos = 0;
+        for (int i = 0; i < names.length; i++) {
+            totalHits += hits.get(i);
+            totalMisses += misses.get(i);
+            totalBuilds += builds.get(i);
+            totalBuildTimeNanos += buildTimeNanos.get(i);
+        }
+        return new LayoutCacheStats(totalHits, totalMisses, pool.getEvictions(), totalBuilds, totalBuildTimeNanos, pool.size());
+    }
+
+    /**
+     * @return counters of the layout class, a variant has counters of its own
+     */
+    public LayoutCacheStats getStats(String name) {
+        return statsOf(indexOf(name));
+    }
+
+    public LayoutCacheStats getStats(int layoutId) {
+        return statsOf(indexOf(layoutId));
+    }
+
+    private LayoutCacheStats statsOf(int index) {
+        return new LayoutCacheStats(hits.get(index), misses.get(index), pool.getEvictions(index), builds.get(index), buildTimeNanos.get(index),
+                pool.size(index));
+    }
+
+    /**
+     * creates the layout on the executor, a prewarmed layout is delivered without creating a new one
+     *
+     * @param callback called on the main thread with the layout
+     * @return request that can be cancelled
+     */
+    public <T extends View> LayoutRequest<T> getLayoutAsync(Context context, String name, Executor executor, LayoutRequest.Callback<T> callback) {
+        return request(context, indexOf(name), executor, callback);
+    }
+
+    public <T extends View> LayoutRequest<T> getLayoutAsync(Context context, int layoutId, Executor executor, LayoutRequest.Callback<T> callback) {
+        return request(context, indexOf(layoutId), executor, callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends View> LayoutRequest<T> request(Context context, int index, Executor executor, LayoutRequest.Callback<T> callback) {
+        int variant = getVariant(context, index);
+        LayoutRequest<T> request = new LayoutRequest<>(this, context, variant, callback);
+        ILayout layout = pool.poll(variant, context);
+        if (layout != null) {
+            hits.incrementAndGet(variant);
+            request.deliver((T) layout);
+        } else {
+            misses.incrementAndGet(variant);
+            request.execute(executor);
+        }
+        return request;
+    }
+
+    /**
+     * creates instances of the layouts on the executor once the message queue of the calling thread is idle, the next calls of getLayout return
+     * them
+     *
+     * @param count instances of every layout, at most its capacity is kept
+     */
+    public void prewarm(Context context, Executor executor, int count, String... names) {
+        for (String name : names) {
+            prewarmLayout(context, executor, count, indexOf(name));
+        }
+    }
+
+    public void prewarm(Context context, Executor executor, int count, int... layoutIds) {
+        for (int layoutId : layoutIds) {
+            prewarmLayout(context, executor, count, indexOf(layoutId));
+        }
+    }
+
+    private void prewarmLayout(Context context, Executor executor, int count, int index) {
+        final int variant = getVariant(context, index);
+        for (int i = 0; i < count; i++) {
+            new LayoutRequest<>(this, context, variant, new LayoutRequest.Callback<View>() {
+                @Override
+                public void onLayoutCreated(View layout) {
+                    pool.offer(variant, (ILayout) layout);
+                }
+            }).executeWhenIdle(executor);
+        }
+    }
+
+    /**
+     * @return index of the variant that matches the configuration of the context, selected once per configuration
+     */
+    private int getVariant(Context context, int index) {
+        if (!hasVariants) {
+            return index;
+        }
+        Configuration configuration = context.getResources().getConfiguration();
+        SelectedVariants selected = selectedVariants;
+        if (selected != null && configuration == selected.source && selected.hasQualifiersOf(configuration)) {
+            return selected.variants[index];
+        }
+        if (selected != null && configuration.equals(selected.configuration)) {
+            //the resources of another context, the next call of the same context takes the fast path
+            selectedVariants = new SelectedVariants(configuration, selected.configuration, selected.variants);
+            return selected.variants[index];
+        }
+        //threads that see a new configuration at the same time select the same variants
+        int[] variants = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            variants[i] = indexOf(selectVariant(configuration, names[i]));
+        }
+        selected = new SelectedVariants(configuration, new Configuration(configuration), variants);
+        selectedVariants = selected;
+        return selected.variants[index];
+    }
+
+    private static final class TrimMemoryCallbacks implements ComponentCallbacks2 {
+
+        private final AbstractLayoutCache cache;
+
+        TrimMemoryCallbacks(AbstractLayoutCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+            cache.trimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            cache.evictAll();
+        }
+
+        @Override
+        public void onLowMemory() {
+            cache.evictAll();
+        }
+    }
+
+    private static final class DestroyedActivityCallbacks implements Application.ActivityLifecycleCallbacks {
+
+        private final AbstractLayoutCache cache;
+
+        DestroyedActivityCallbacks(AbstractLayoutCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            cache.evictAll(activity);
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+    }
+
+    private static final class SelectedVariants {
+
+        /**
+         * configuration of the resources the variants were last used for, resources update it in place when the configuration changes
+         */
+        final Configuration source;
+
+        /**
+         * copy of the configuration the variants were selected for
+         */
+        final Configuration configuration;
+
+        final int[] variants;
+
+        SelectedVariants(Configuration source, Configuration configuration, int[] variants) {
+            this.source = source;
+            this.configuration = configuration;
+            this.variants = variants;
+        }
+
+        /**
+         * @return true when the fields that the qualifiers of the generated variants read did not change
+         */
+        boolean hasQualifiersOf(Configuration source) {
+            return source.orientation == configuration.orientation && source.screenLayout == configuration.screenLayout
+                    && source.uiMode == configuration.uiMode && source.screenWidthDp == configuration.screenWidthDp
+                    && source.screenHeightDp == configuration.screenHeightDp && source.smallestScreenWidthDp == configuration.smallestScreenWidthDp;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.fabianterhorst.fastlayout;
+
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+/**
+ * The dp and sp values of a generated layout, converted to pixels once per density and font scale
+ *
+ * The returned arrays are shared between all instances of the layout and must not be modified.
+ */
+public final class DimensionTable {
+
+    private final float[] dp;
+
+    private final float[] sp;
+
+    private volatile DpPixels dpPixels;
+
+    private volatile SpPixels spPixels;
+
+    public DimensionTable(float[] dp, float[] sp) {
+        this.dp = dp;
+        this.sp = sp;
+    }
+
+    /**
+     * @param metrics display metrics of the context the layout is created with
+     * @return the dp values in pixels, same rounding as {@link LayoutUtils#convertDpToPixel(float, android.content.Context)}
+     */
+    public int[] dp(DisplayMetrics metrics) {
+        DpPixels current = dpPixels;
+        if (current == null || current.densityDpi != metrics.densityDpi) {
+            int[] pixels = new int[dp.length];
+            for (int i = 0; i < dp.length; i++) {
+                pixels[i] = (int) (dp[i] * (metrics.densityDpi / 160f));
+            }
+            current = new DpPixels(metrics.densityDpi, pixels);
+            dpPixels = current;
+        }
+        return current.pixels;
+    }
+
+    /**
+     * @param metrics display metrics of the context the layout is created with
+     * @return the sp values in pixels, same as {@link LayoutUtils#convertSpToPixel(float, android.content.Context)}
+     */
+    public float[] sp(DisplayMetrics metrics) {
+        SpPixels current = spPixels;
+        if (current == null || current.scaledDensity != metrics.scaledDensity) {
+            float[] pixels = new float[sp.length];
+            for (int i = 0; i < sp.length; i++) {
+                pixels[i] = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp[i], metrics);
+            }
+            current = new SpPixels(metrics.scaledDensity, pixels);
+            spPixels = current;
+        }
+        return current.pixels;
+    }
+
+    private static final class DpPixels {
+
+        final int densityDpi;
+
+        final int[] pixels;
+
+        DpPixels(int densityDpi, int[] pixels) {
+            this.densityDpi = densityDpi;
+            this.pixels = pixels;
+        }
+    }
+
+    private static final class SpPixels {
+
+        final float scaledDensity;
+
+        final float[] pixels;
+
+        SpPixels(float scaledDensity, float[] pixels) {
+            this.scaledDensity = scaledDensity;
+            this.pixels = pixels;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package io.fabianterhorst.fastlayout;
 
+import android.content.Context;
+
 public interface ILayout {
-    ILayout clone();
+
+    /**
+     * creates a new layout of the same class with the values this layout resolved from the resources, when the configuration did not change
+     */
+    ILayout newInstance(Context context);
 }
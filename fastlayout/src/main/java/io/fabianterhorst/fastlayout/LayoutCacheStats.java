@@ -0,0 +1,70 @@
+package io.fabianterhorst.fastlayout;
+
+/**
+ * Counters of a LayoutCache or of one of its layouts at the time they were read
+ *
+ * A hit is a layout returned from the pool, a miss a layout that had to be built on request. Prewarmed layouts count as builds but not as
+ * misses, so hits + misses are all requests and builds - misses are the layouts built ahead of time.
+ */
+public final class LayoutCacheStats {
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final long builds;
+
+    private final long buildTimeNanos;
+
+    private final int size;
+
+    LayoutCacheStats(long hits, long misses, long evictions, long builds, long buildTimeNanos, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.builds = builds;
+        this.buildTimeNanos = buildTimeNanos;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return instances removed from the pool because it was full or memory was trimmed
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getBuilds() {
+        return builds;
+    }
+
+    /**
+     * @return time spent building layouts on any thread
+     */
+    public long getBuildTimeNanos() {
+        return buildTimeNanos;
+    }
+
+    /**
+     * @return idle instances in the pool
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutCacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", builds=" + builds + ", buildTimeNanos="
+                + buildTimeNanos + ", size=" + size + "}";
+    }
+}
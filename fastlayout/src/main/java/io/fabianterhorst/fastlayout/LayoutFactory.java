@@ -0,0 +1,14 @@
+package io.fabianterhorst.fastlayout;
+
+import android.content.Context;
+
+/**
+ * Creates a generated layout, the generated LayoutCache has one factory for every layout class
+ */
+public interface LayoutFactory {
+
+    /**
+     * called on any thread
+     */
+    ILayout create(Context context);
+}
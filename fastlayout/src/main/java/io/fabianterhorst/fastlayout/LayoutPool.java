@@ -0,0 +1,213 @@
+package io.fabianterhorst.fastlayout;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.view.View;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Idle layout instances by the index of their layout class
+ *
+ * Every layout keeps at most its capacity, all layouts together at most the max size. When the pool is full, an instance of the layout that
+ * was used least recently is evicted. The instances of a layout are a lock-free stack and the sizes are atomic counters, so polling and
+ * offering never lock. Only evicting takes a lock, it is needed when the pool is full, the memory is trimmed or an activity is destroyed.
+ *
+ * An instance is only returned for the context it was built with, it keeps that context and its theme and configuration. Instances of another
+ * context are evicted when they are found, so a pool that is used by the next activity does not keep the previous one alive.
+ */
+final class LayoutPool {
+
+    /**
+     * top of the instances of every layout
+     */
+    private final AtomicReferenceArray<Node> instances;
+
+    private final AtomicIntegerArray sizes;
+
+    private final AtomicIntegerArray capacities;
+
+    /**
+     * tick of the last poll or offer of every layout, the layout with the lowest tick is the least recently used one
+     */
+    private final AtomicLongArray lastUsed;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicLongArray evictions;
+
+    private final AtomicLong totalEvictions = new AtomicLong();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile int maxSize;
+
+    LayoutPool(int layouts, int capacity, int maxSize) {
+        instances = new AtomicReferenceArray<>(layouts);
+        sizes = new AtomicIntegerArray(layouts);
+        capacities = new AtomicIntegerArray(layouts);
+        for (int i = 0; i < layouts; i++) {
+            capacities.set(i, capacity);
+        }
+        lastUsed = new AtomicLongArray(layouts);
+        evictions = new AtomicLongArray(layouts);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return an idle instance that was built with the context or null
+     */
+    ILayout poll(int index, Context context) {
+        lastUsed.set(index, clock.incrementAndGet());
+        ILayout layout;
+        while ((layout = pop(index)) != null) {
+            if (((View) layout).getContext() == context) {
+                return layout;
+            }
+            evicted(index);
+        }
+        return null;
+    }
+
+    /**
+     * @return false when the layout already has as many idle instances as its capacity
+     */
+    boolean offer(int index, ILayout layout) {
+        int count;
+        do {
+            count = sizes.get(index);
+            if (count >= capacities.get(index)) {
+                return false;
+            }
+        } while (!sizes.compareAndSet(index, count, count + 1));
+        lastUsed.set(index, clock.incrementAndGet());
+        push(index, new Node(layout));
+        if (size.incrementAndGet() > maxSize) {
+            trimToSize(maxSize);
+        }
+        return true;
+    }
+
+    void setCapacity(int index, int capacity) {
+        capacities.set(index, capacity);
+        while (sizes.get(index) > capacity && pop(index) != null) {
+            evicted(index);
+        }
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * evicts instances of the least recently used layouts until at most size instances are left
+     */
+    synchronized void trimToSize(int size) {
+        while (this.size.get() > size) {
+            int index = getLeastRecentlyUsed();
+            if (index < 0) {
+                //the remaining instances are still being offered
+                return;
+            }
+            if (pop(index) != null) {
+                evicted(index);
+            }
+        }
+    }
+
+    /**
+     * evicts the instances that were built with the context or a wrapper of it, called when the activity of the context is destroyed
+     */
+    synchronized void evictAll(Context context) {
+        for (int i = 0; i < instances.length(); i++) {
+            //instances that are offered meanwhile are pushed on top of the kept ones
+            for (Node node = instances.getAndSet(i, null); node != null; node = node.next) {
+                if (isBuiltWith(node.layout, context)) {
+                    sizes.decrementAndGet(i);
+                    size.decrementAndGet();
+                    evicted(i);
+                } else {
+                    push(i, new Node(node.layout));
+                }
+            }
+        }
+    }
+
+    private int getLeastRecentlyUsed() {
+        int leastRecentlyUsed = -1;
+        for (int i = 0; i < instances.length(); i++) {
+            if (instances.get(i) != null && (leastRecentlyUsed < 0 || lastUsed.get(i) < lastUsed.get(leastRecentlyUsed))) {
+                leastRecentlyUsed = i;
+            }
+        }
+        return leastRecentlyUsed;
+    }
+
+    private ILayout pop(int index) {
+        Node top;
+        do {
+            top = instances.get(index);
+            if (top == null) {
+                return null;
+            }
+        } while (!instances.compareAndSet(index, top, top.next));
+        sizes.decrementAndGet(index);
+        size.decrementAndGet();
+        return top.layout;
+    }
+
+    private void push(int index, Node node) {
+        do {
+            node.next = instances.get(index);
+        } while (!instances.compareAndSet(index, node.next, node));
+    }
+
+    private static boolean isBuiltWith(ILayout layout, Context context) {
+        Context layoutContext = ((View) layout).getContext();
+        while (layoutContext != context && layoutContext instanceof ContextWrapper) {
+            layoutContext = ((ContextWrapper) layoutContext).getBaseContext();
+        }
+        return layoutContext == context;
+    }
+
+    private void evicted(int index) {
+        evictions.incrementAndGet(index);
+        totalEvictions.incrementAndGet();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int size(int index) {
+        return sizes.get(index);
+    }
+
+    long getEvictions() {
+        return totalEvictions.get();
+    }
+
+    long getEvictions(int index) {
+        return evictions.get(index);
+    }
+
+    private static final class Node {
+
+        final ILayout layout;
+
+        Node next;
+
+        Node(ILayout layout) {
+            this.layout = layout;
+        }
+    }
+}
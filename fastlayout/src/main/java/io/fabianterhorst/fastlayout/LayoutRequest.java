@@ -0,0 +1,105 @@
+package io.fabianterhorst.fastlayout;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A layout that is created on an executor and delivered to the main thread
+ *
+ * Generated layouts do not depend on the main thread, but a view that creates a Handler in its constructor needs a thread with a Looper. A
+ * cancelled request does not create the layout when it has not started yet and never calls its callback. Cancel on the main thread to be sure
+ * the callback is not called anymore.
+ */
+public final class LayoutRequest<T extends View> {
+
+    public interface Callback<T extends View> {
+
+        /**
+         * called on the main thread
+         *
+         * @param layout the created layout
+         */
+        void onLayoutCreated(T layout);
+    }
+
+    private static volatile Handler mainHandler;
+
+    private final AbstractLayoutCache cache;
+
+    private final Context context;
+
+    private final int index;
+
+    private final Callback<T> callback;
+
+    private volatile boolean cancelled;
+
+    LayoutRequest(AbstractLayoutCache cache, Context context, int index, Callback<T> callback) {
+        this.cache = cache;
+        this.context = context;
+        this.index = index;
+        this.callback = callback;
+    }
+
+    void execute(Executor executor) {
+        executor.execute(new Runnable() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void run() {
+                if (!cancelled) {
+                    deliver((T) cache.createLayout(context, index));
+                }
+            }
+        });
+    }
+
+    /**
+     * submits the request when the message queue of the calling thread is idle, so it does not compete with the first frames
+     */
+    void executeWhenIdle(final Executor executor) {
+        if (Looper.myLooper() == null) {
+            execute(executor);
+            return;
+        }
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (!cancelled) {
+                    execute(executor);
+                }
+                return false;
+            }
+        });
+    }
+
+    void deliver(final T layout) {
+        getMainHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled) {
+                    callback.onLayoutCreated(layout);
+                }
+            }
+        });
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private static Handler getMainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+}
@@ -9,12 +9,13 @@ import android.os.Build;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LayoutUtils {
 
-    private static final HashMap<Float, Integer> pxForDp = new HashMap<>();
-    private static final HashMap<Float, Float> pxForSp = new HashMap<>();
+    //layouts can be created on any thread
+    private static final ConcurrentHashMap<Float, Integer> pxForDp = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Float, Float> pxForSp = new ConcurrentHashMap<>();
 
     public static int getAttrInt(Context context, int attr) {
         TypedValue typedValue = new TypedValue();
@@ -23,7 +24,11 @@ public class LayoutUtils {
     }
 
     public static Drawable getAttrDrawable(Context context, int attr) {
-        TypedArray ta = context.getTheme().obtainStyledAttributes(new int[]{attr});
+        return getAttrDrawable(context.getTheme(), attr);
+    }
+
+    public static Drawable getAttrDrawable(Resources.Theme theme, int attr) {
+        TypedArray ta = theme.obtainStyledAttributes(new int[]{attr});
         Drawable drawable = ta.getDrawable(0);
         ta.recycle();
         return drawable;
@@ -48,8 +53,9 @@ public class LayoutUtils {
      * @return A float value to represent px equivalent to dp depending on device density
      */
     public static int convertDpToPixel(float dp, Context context) {
-        if (pxForDp.containsKey(dp)) {
-            return pxForDp.get(dp);
+        Integer cached = pxForDp.get(dp);
+        if (cached != null) {
+            return cached;
         }
         Resources resources = context.getResources();
         DisplayMetrics metrics = resources.getDisplayMetrics();
@@ -66,8 +72,9 @@ public class LayoutUtils {
      * @return A float value to represent px equivalent to sp depending on device density
      */
     public static float convertSpToPixel(float sp, Context context) {
-        if (pxForSp.containsKey(sp)) {
-            return pxForSp.get(sp);
+        Float cached = pxForSp.get(sp);
+        if (cached != null) {
+            return cached;
         }
         //Resources resources = context.getResources();
         //DisplayMetrics metrics = resources.getDisplayMetrics();
@@ -0,0 +1,117 @@
+package io.fabianterhorst.fastlayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * Placeholder of a subtree that a generated layout creates on first use, like a ViewStub that does not inflate
+ *
+ * The placeholder is invisible and takes no space. The subtree is created when the placeholder is inflated, when it is made visible or when a
+ * generated getter of a view of the subtree is called. The created subtree replaces the placeholder in its parent. The placeholder has the
+ * layout params of the subtree root, a view that is positioned relative to the placeholder, e.g. in a RelativeLayout, stays where it is.
+ */
+public final class LazyView extends View {
+
+    public interface Factory {
+
+        /**
+         * creates the subtree of the placeholder and passes its root to {@link #replaceWith(View)}
+         *
+         * @param view  placeholder
+         * @param index index of the placeholder in the generated layout
+         */
+        void inflate(LazyView view, int index);
+    }
+
+    private final Factory factory;
+
+    private final int index;
+
+    private View inflatedView;
+
+    public LazyView(Context context, Factory factory, int index) {
+        super(context);
+        this.factory = factory;
+        this.index = index;
+        super.setVisibility(GONE);
+        setWillNotDraw(true);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(0, 0);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+    }
+
+    /**
+     * creates the subtree when it becomes visible, the subtree gets the visibility
+     */
+    @Override
+    public void setVisibility(int visibility) {
+        if (inflatedView != null) {
+            inflatedView.setVisibility(visibility);
+        } else if (visibility == VISIBLE || visibility == INVISIBLE) {
+            inflate().setVisibility(visibility);
+        } else {
+            super.setVisibility(visibility);
+        }
+    }
+
+    /**
+     * @return the root of the subtree, it is created on the first call
+     */
+    public View inflate() {
+        if (inflatedView == null) {
+            factory.inflate(this, index);
+            if (inflatedView == null) {
+                throw new IllegalStateException("the factory did not replace the placeholder");
+            }
+        }
+        return inflatedView;
+    }
+
+    /**
+     * @return the root of the subtree or null when it was not created yet
+     */
+    public View getInflatedView() {
+        return inflatedView;
+    }
+
+    /**
+     * replaces the placeholder in its parent at the same position, the view gets the layout params of the placeholder
+     *
+     * @param view root of the created subtree
+     */
+    public void replaceWith(View view) {
+        replaceWith(view, getLayoutParams());
+    }
+
+    /**
+     * replaces the placeholder in its parent at the same position
+     *
+     * @param view   root of the created subtree
+     * @param params layout params of the subtree root
+     */
+    public void replaceWith(View view, ViewGroup.LayoutParams params) {
+        inflatedView = view;
+        ViewParent parent = getParent();
+        if (parent instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) parent;
+            int position = group.indexOfChild(this);
+            group.removeViewInLayout(this);
+            group.addView(view, position, params);
+        } else {
+            view.setLayoutParams(params);
+        }
+    }
+}
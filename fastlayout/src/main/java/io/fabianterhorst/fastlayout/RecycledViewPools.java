@@ -0,0 +1,45 @@
+package io.fabianterhorst.fastlayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Fills a RecycledViewPool with view holders before the RecyclerView needs them, so the first frames of scrolling do not create views
+ *
+ * The holders are created by the adapter on the executor, that gives them their view type, and are put into the pool on the main thread. Like a
+ * {@link LayoutRequest}, this needs views that do not create a Handler in their constructor. RecyclerView is only needed by apps that use
+ * this class.
+ */
+public final class RecycledViewPools {
+
+    private RecycledViewPools() {
+    }
+
+    /**
+     * sets the max recycled views of the view type to count and creates count holders
+     *
+     * @param parent view group the holders are created for, usually the RecyclerView of the pool
+     */
+    public static void prewarm(final RecyclerView.RecycledViewPool pool, final RecyclerView.Adapter<?> adapter, final ViewGroup parent, final int viewType, int count, Executor executor) {
+        pool.setMaxRecycledViews(viewType, count);
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        for (int i = 0; i < count; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final RecyclerView.ViewHolder holder = adapter.createViewHolder(parent, viewType);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            pool.putRecycledView(holder);
+                        }
+                    });
+                }
+            });
+        }
+    }
+}